@@ -0,0 +1,137 @@
+/**
+ * Height, balance factor and rotation helpers for the AVL trees built on
+ * Node: AVLTree, OrderStatisticTree and IntervalTree. A tree that keeps
+ * more in its nodes than the height, such as a subtree size, passes an
+ * Augment that recalculates it whenever a node's children change, so
+ * rotations keep it up to date along with the height.
+ */
+final class AVLBalance {
+
+    /**
+     * Recalculates the extra data a tree keeps in a node from the node's
+     * children
+     * @param <T> the type of data in the tree
+     */
+    interface Augment<T extends Comparable<T>> {
+
+        /**
+         * Called after the node's height and balance factor are updated
+         * @param aNode the node whose children have changed
+         */
+        void update(Node<T> aNode);
+    }
+
+    /**
+     * Not instantiable
+     */
+    private AVLBalance() { }
+
+    /**
+     * @param aNode a node, possibly null
+     * @return the height of aNode, -1 for null
+     */
+    static <T extends Comparable<T>> int heightOf(Node<T> aNode) {
+        return aNode == null ? -1 : aNode.getHeight();
+    }
+
+    /**
+     * Recalculates the height, balance factor and any extra data of a node
+     * from its children
+     * @param aNode the node to update
+     * @param augment recalculates the extra data, null if there is none
+     */
+    static <T extends Comparable<T>> void update(Node<T> aNode,
+            Augment<T> augment) {
+        int left = heightOf(aNode.getLeft());
+        int right = heightOf(aNode.getRight());
+        aNode.setHeight(Math.max(left, right) + 1);
+        aNode.setBalanceFactor(left - right);
+        if (augment != null) { augment.update(aNode); }
+    }
+
+    /**
+     * Updates a node and rotates it if its children now differ in height
+     * by two
+     * @param aNode the node to balance
+     * @param augment recalculates the extra data, null if there is none
+     * @return the new parent of the subtree
+     */
+    static <T extends Comparable<T>> Node<T> balance(Node<T> aNode,
+            Augment<T> augment) {
+        update(aNode, augment);
+        if (aNode.getBalanceFactor() == 2 || aNode.getBalanceFactor() == -2) {
+            return rebalance(aNode, augment);
+        }
+        return aNode;
+    }
+
+    /**
+     * Rotates a node whose balance factor has reached 2 or -2
+     * @param aNode the unbalanced node
+     * @param augment recalculates the extra data, null if there is none
+     * @return the new parent of the rotated subtree
+     */
+    static <T extends Comparable<T>> Node<T> rebalance(Node<T> aNode,
+            Augment<T> augment) {
+        return aNode.getBalanceFactor() > 0 ? rotateRight(aNode, augment)
+                : rotateLeft(aNode, augment);
+    }
+
+    /**
+     * Performs a left-left or left-right rotation, depending on which
+     * is necessary
+     * @param child1 the parent node of the subtree that will be rotated
+     * @param augment recalculates the extra data, null if there is none
+     * @return the new parent of the rotated subtree
+     */
+    static <T extends Comparable<T>> Node<T> rotateLeft(Node<T> child1,
+            Augment<T> augment) {
+        Node<T> child2 = child1.getRight();
+        Node<T> child3;
+        if (child2.getBalanceFactor() == 1) {
+            child3 = child2.getLeft();
+            child2.setLeft(child3.getRight());
+            child1.setRight(child3.getLeft());
+            child3.setRight(child2);
+            child3.setLeft(child1);
+            child1 = child3;
+        } else {
+            child1.setRight(child2.getLeft());
+            child2.setLeft(child1);
+            child1 = child2;
+        }
+        update(child1.getLeft(), augment);
+        update(child1.getRight(), augment);
+        update(child1, augment);
+        return child1;
+    }
+
+    /**
+     * Performs a right-right or right-left rotation, depending on which
+     * is necessary
+     * @param child1 the parent node of the subtree that will be rotated
+     * @param augment recalculates the extra data, null if there is none
+     * @return the new parent of the rotated subtree
+     */
+    static <T extends Comparable<T>> Node<T> rotateRight(Node<T> child1,
+            Augment<T> augment) {
+        Node<T> child2 = child1.getLeft();
+        Node<T> child3;
+        if (child2.getBalanceFactor() == -1) {
+            child3 = child2.getRight();
+            child2.setRight(child3.getLeft());
+            child1.setLeft(child3.getRight());
+            child3.setLeft(child2);
+            child3.setRight(child1);
+            child1 = child3;
+        } else {
+            child1.setLeft(child2.getRight());
+            child2.setRight(child1);
+            child1 = child2;
+        }
+        update(child1.getLeft(), augment);
+        update(child1.getRight(), augment);
+        update(child1, augment);
+        return child1;
+    }
+}
@@ -1,350 +1,453 @@
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * My AVL implementation.
  *
+ * add and remove each make a single descent, recording the path, and then
+ * retrace it upwards only until a subtree's height stops changing. For
+ * write heavy workloads RedBlackTree does fewer rotations.
+ *
  * @author Carey Crook
  */
 public class AVLTree<T extends Comparable<T>> implements AVLInterface<T>,
-       Gradable<T> {
+       Gradable<T>, Iterable<T> {
+
+    private static final int UNION = 0;
+    private static final int INTERSECTION = 1;
+    private static final int DIFFERENCE = 2;
+    private static final int PARALLEL_HEIGHT = 12;
 
     private Node<T> root;
     private int size;
 
     /**
-     * Finds the height of a Node
-     * @param aNode to find the height of
-     * @return the height of aNode
+     * Points a parent at a new child in place of an old one
+     * @param parent the parent, null if the old child is the root
+     * @param oldChild the child being replaced
+     * @param newChild the node taking its place, may be null
      */
-    private int calcHeight(Node<T> aNode) {
-        if (aNode.getLeft() == null && aNode.getRight() == null) {
-            return 0;
-        } else if (aNode.getLeft() == null) {
-            return aNode.getRight().getHeight();
-        } else if (aNode.getRight() == null) {
-            return aNode.getLeft().getHeight();
-        } else if (aNode.getLeft().getHeight() > aNode.getRight().getHeight()) {
-            return aNode.getLeft().getHeight();
-        } else { return aNode.getRight().getHeight(); }
+    private void replaceChild(Node<T> parent, Node<T> oldChild,
+            Node<T> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.getLeft() == oldChild) {
+            parent.setLeft(newChild);
+        } else {
+            parent.setRight(newChild);
+        }
     }
 
     /**
-     * Calculates the balance factor of a node
-     * @param aNode to find the balance factor of
-     * @return the balance factor of aNode
+     * Walks back up a recorded path after an insertion or removal below
+     * it, updating heights and rotating where needed. Stops as soon as a
+     * subtree's height is what it was before the change, since nothing
+     * above it can have changed either; after an insertion that happens at
+     * the latest right after the first rotation.
+     * @param path the nodes from the root down to the parent of the change
+     * @param depth the number of nodes in path
      */
-    private int calcBalFactor(Node<T> aNode) {
-        if (aNode.getLeft() == null && aNode.getRight() == null) {
-            return 0;
-        } else if (aNode.getLeft() == null) {
-            return -1 - aNode.getRight().getHeight();
-        } else if (aNode.getRight() == null) {
-            return aNode.getLeft().getHeight() + 1;
-        } else {
-            return aNode.getLeft().getHeight() - aNode.getRight().getHeight();
+    private void retrace(Node<T>[] path, int depth) {
+        for (int d = depth - 1; d >= 0; d--) {
+            Node<T> here = path[d];
+            int oldHeight = here.getHeight();
+            AVLBalance.update(here, null);
+            if (here.getBalanceFactor() == 2
+                    || here.getBalanceFactor() == -2) {
+                here = AVLBalance.rebalance(here, null);
+                replaceChild(d > 0 ? path[d - 1] : null, path[d], here);
+            }
+            if (here.getHeight() == oldHeight) { return; }
         }
     }
 
     /**
-     * Traverses down the tree and updates the height and balance factor of all
-     * nodes that are found when searching for the passed data value
-     * @param aNode the current node
-     * @param data the data that will direct the traversal
+     * Joins two trees around a middle node. Every item in left must be
+     * less than the middle node's item and every item in right greater.
+     * Descends the taller tree's inner spine to a subtree of about the
+     * other's height, links there and rebalances on the way back, so the
+     * cost is proportional to the difference in heights.
+     * @param left the tree of smaller items, may be null
+     * @param middle the node to link between them; its children are
+     *               overwritten
+     * @param right the tree of greater items, may be null
+     * @return the root of the joined tree
      */
-    private void updateHeight(Node<T> aNode, T data) {
-        if (aNode.getRight() == null && aNode.getLeft() == null) {
-            aNode.setHeight(0);
-            aNode.setBalanceFactor(0);
-            return;
-        }
-        if (aNode.getData().compareTo(data) > 0) {
-            if (aNode.getLeft() != null) {
-                updateHeight(aNode.getLeft(), data);
-            } else { return; }
-        } else if (aNode.getRight() != null) {
-            updateHeight(aNode.getRight(), data);
-        } else { return; }
-        if (aNode.getLeft() == null) {
-            aNode.setHeight(aNode.getRight().getHeight() + 1);
-            aNode.setBalanceFactor(-1 - aNode.getRight().getHeight());
-        } else if (aNode.getRight() == null) {
-            aNode.setHeight(aNode.getLeft().getHeight() + 1);
-            aNode.setBalanceFactor(aNode.getLeft().getHeight() + 1);
-        } else {
-            if (aNode.getLeft().getHeight() > aNode.getRight().getHeight()) {
-                aNode.setHeight(aNode.getLeft().getHeight() + 1);
-            } else {
-                aNode.setHeight(aNode.getRight().getHeight() + 1);
-            }
-            aNode.setBalanceFactor(aNode.getLeft().
-                    getHeight() - aNode.getRight().getHeight());
+    private Node<T> join(Node<T> left, Node<T> middle, Node<T> right) {
+        if (AVLBalance.heightOf(left) > AVLBalance.heightOf(right) + 1) {
+            left.setRight(join(left.getRight(), middle, right));
+            return AVLBalance.balance(left, null);
+        } else if (AVLBalance.heightOf(right) > AVLBalance.heightOf(left) + 1) {
+            right.setLeft(join(left, middle, right.getLeft()));
+            return AVLBalance.balance(right, null);
         }
+        middle.setLeft(left);
+        middle.setRight(right);
+        AVLBalance.update(middle, null);
+        return middle;
     }
 
     /**
-     * Balances the tree, starting from aNode and traversing the tree downwards
-     * towards the passed data value.
-     * @param aNode the node where the balancing will begin
-     * @param data the data that will direct the traversal
-     * @return the parent of the rebalanced subtree. Useful for
-     * pointer reinforcement
+     * Joins two trees where every item in left is less than every item in
+     * right, using the largest node of left as the middle node
+     * @param left the tree of smaller items, may be null
+     * @param right the tree of greater items, may be null
+     * @return the root of the joined tree
      */
-    private Node<T> balanceTree(Node<T> aNode, T data) {
-        if (aNode.getBalanceFactor() == 2) {
-            aNode = rotateRight(aNode);
-            return aNode;
-        } else if (aNode.getBalanceFactor() == -2) {
-            aNode = rotateLeft(aNode);
-            return aNode;
-        } else if (aNode.getLeft() == null && aNode.getRight() == null) {
-            return aNode;
-        } else if (aNode.getData().compareTo(data) > 0) {
-            if (aNode.getLeft() != null) {
-                aNode.setLeft(balanceTree(aNode.getLeft(), data));
-            } else { return aNode; }
-        } else if (aNode.getRight() != null) {
-            aNode.setRight(balanceTree(aNode.getRight(), data));
-        } else {
-            return aNode;
-        }
-        return aNode;
+    private Node<T> join(Node<T> left, Node<T> right) {
+        if (left == null) { return right; }
+        Node<T>[] last = new Node[1];
+        left = removeLast(left, last);
+        return join(left, last[0], right);
     }
 
     /**
-     * Performs a left-left or left-right rotation, depending on which
-     * is necessary
-     * @param child1 the parent node of the subtree that will be rotated
-     * @return the new parent of the rotated subtree
+     * Unlinks the largest node of a tree
+     * @param here the root of the tree
+     * @param last filled with the unlinked node
+     * @return the root of what is left of the tree
      */
-    private Node<T> rotateLeft(Node<T> child1) {
-        Node<T> child2 = child1.getRight();
-        Node<T> child3;
-        if (child2.getBalanceFactor() == 1) {
-            child3 = child2.getLeft();
-            child2.setLeft(child3.getRight());
-            child1.setRight(child3.getLeft());
-            child3.setRight(child2);
-            child3.setLeft(child1);
-            child1 = child3;
-        } else {
-            child1.setRight(child2.getLeft());
-            child2.setLeft(child1);
-            child1 = child2;
+    private Node<T> removeLast(Node<T> here, Node<T>[] last) {
+        if (here.getRight() == null) {
+            last[0] = here;
+            return here.getLeft();
         }
-        child2 = child1.getLeft();
-        child3 = child1.getRight();
-        child2.setHeight(calcHeight(child2));
-        child2.setBalanceFactor(calcBalFactor(child2));
-        child3.setHeight(calcHeight(child3));
-        child3.setBalanceFactor(calcBalFactor(child3));
-        child1.setHeight(calcHeight(child1));
-        child1.setBalanceFactor(calcBalFactor(child1));
-        return child1;
+        return join(here.getLeft(), here, removeLast(here.getRight(), last));
     }
 
     /**
-     * Performs a right-right or right-left rotation, depending on which
-     * is necessary
-     * @param child1 the parent node of the subtree that will be rotated
-     * @return the new parent of the rotated subtree
+     * Splits a tree around an item, reusing its nodes
+     * @param here the root of the tree, may be null
+     * @param data the item to split around
+     * @param parts filled with the tree of smaller items, the node equal to
+     *              data or null, and the tree of greater items
      */
-    private Node<T> rotateRight(Node<T> child1) {
-        Node<T> child2 = child1.getLeft();
-        Node<T> child3;
-        if (child2.getBalanceFactor() == -1) {
-            child3 = child2.getRight();
-            child2.setRight(child3.getLeft());
-            child1.setLeft(child3.getRight());
-            child3.setLeft(child2);
-            child3.setRight(child1);
-            child1 = child3;
+    private void split(Node<T> here, T data, Node<T>[] parts) {
+        if (here == null) {
+            parts[0] = null;
+            parts[1] = null;
+            parts[2] = null;
+            return;
+        }
+        int cmp = data.compareTo(here.getData());
+        if (cmp == 0) {
+            parts[0] = here.getLeft();
+            parts[1] = here;
+            parts[2] = here.getRight();
+        } else if (cmp < 0) {
+            Node<T> right = here.getRight();
+            split(here.getLeft(), data, parts);
+            parts[2] = join(parts[2], here, right);
         } else {
-            child1.setLeft(child2.getRight());
-            child2.setRight(child1);
-            child1 = child2;
+            Node<T> left = here.getLeft();
+            split(here.getRight(), data, parts);
+            parts[0] = join(left, here, parts[0]);
         }
-        child2 = child1.getLeft();
-        child3 = child1.getRight();
-        child2.setHeight(calcHeight(child2));
-        child2.setBalanceFactor(calcBalFactor(child2));
-        child3.setHeight(calcHeight(child3));
-        child3.setBalanceFactor(calcBalFactor(child3));
-        child1.setHeight(calcHeight(child1));
-        child1.setBalanceFactor(calcBalFactor(child1));
-        return child1;
     }
 
     /**
-     * Recursive method used in removal from the AVL
-     * @param here the current node
-     * @param data the data that will direct the traversal
-     * @param res a holder for the removed node
-     * @return the next node in the traversal, null if the data is not found
+     * Recursive method used to build a balanced tree from sorted items
+     * @param items the items in ascending order
+     * @param lo the index of the first item of the subtree
+     * @param hi the index after the last item of the subtree
+     * @return the root of the subtree, null if it is empty
      */
-
-    private Node<T> remove(Node<T> here, T data, Node<T> res) {
-        if (here.getData().equals(data)) {
-            if (res.getData() == null) { res.setData(here.getData()); }
-            if (here.getLeft() == null && here.getRight() == null) {
-                return null;
-            } else if (here.getLeft() == null) {
-                return here.getRight();
-            } else if (here.getRight() == null) {
-                return here.getLeft();
-            } else {
-                if (here.getRight().getLeft() != null) {
-                    Node<T> temp = here;
-                    temp = here.getRight();
-                    while (temp.getLeft().getLeft() != null) {
-                        temp = temp.getLeft();
-                    }
-                    here.setData(temp.getLeft().getData());
-                    temp.setLeft(null);
-                } else {
-                    here.setData(here.getRight().getData());
-                    here.setRight(here.getRight().getRight());
-                }
-                return here;
-            }
-        } else if (data.compareTo(here.getData()) > 0) {
-            if (here.getRight() != null) {
-                here.setRight(remove(here.getRight(), data, res));
-            } else { return null; }
-        } else {
-            if (here.getLeft() != null) {
-                here.setLeft(remove(here.getLeft(), data, res));
-            } else { return null; }
-        }
+    private Node<T> build(List<T> items, int lo, int hi) {
+        if (lo == hi) { return null; }
+        int mid = (lo + hi) >>> 1;
+        Node<T> here = new Node<T>(items.get(mid));
+        here.setLeft(build(items, lo, mid));
+        here.setRight(build(items, mid + 1, hi));
+        AVLBalance.update(here, null);
         return here;
     }
 
-
     /**
-     * Recursive method used to append nodes to a list in preorder
-     * @param here the current node in the tree
-     * @param data the list that is being appended to
-     * @return the new list after being added to
+     * Task that combines two trees with a set operation, splitting the
+     * second around the root of the first and combining the two pairs of
+     * halves. In parallel mode the left pair is forked while the right
+     * pair is done by the current thread, down to subtrees of
+     * PARALLEL_HEIGHT.
      */
-    private List<T> preorder(Node<T> here, List<T> data) {
-        if (here != null) {
-            data.add(here.getData());
-            preorder(here.getLeft(), data);
-            preorder(here.getRight(), data);
+    private final class SetOperation extends RecursiveTask<Node<T>> {
+
+        private final int op;
+        private final Node<T> first;
+        private final Node<T> second;
+        private final AtomicInteger matches;
+        private final boolean parallel;
+
+        /**
+         * Creates a task
+         * @param op UNION, INTERSECTION or DIFFERENCE
+         * @param first the root of the first tree, may be null
+         * @param second the root of the second tree, may be null
+         * @param matches counts the items found in both trees
+         * @param parallel whether to fork work for large subtrees
+         */
+        SetOperation(int op, Node<T> first, Node<T> second,
+                AtomicInteger matches, boolean parallel) {
+            this.op = op;
+            this.first = first;
+            this.second = second;
+            this.matches = matches;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected Node<T> compute() {
+            if (first == null) { return op == UNION ? second : null; }
+            if (second == null) { return op == INTERSECTION ? null : first; }
+            Node<T> pivot;
+            Node<T>[] parts = new Node[3];
+            Node<T> left;
+            Node<T> right;
+            if (op == DIFFERENCE) {
+                pivot = second;
+                split(first, second.getData(), parts);
+                left = second.getLeft();
+                right = second.getRight();
+            } else {
+                pivot = first;
+                left = first.getLeft();
+                right = first.getRight();
+                split(second, first.getData(), parts);
+            }
+            if (parts[1] != null) { matches.incrementAndGet(); }
+            SetOperation leftTask = new SetOperation(op,
+                    op == DIFFERENCE ? parts[0] : left,
+                    op == DIFFERENCE ? left : parts[0], matches, parallel);
+            SetOperation rightTask = new SetOperation(op,
+                    op == DIFFERENCE ? parts[2] : right,
+                    op == DIFFERENCE ? right : parts[2], matches, parallel);
+            Node<T> leftRes;
+            Node<T> rightRes;
+            if (parallel && AVLBalance.heightOf(pivot) > PARALLEL_HEIGHT) {
+                leftTask.fork();
+                rightRes = rightTask.compute();
+                leftRes = leftTask.join();
+            } else {
+                leftRes = leftTask.compute();
+                rightRes = rightTask.compute();
+            }
+            if (op == UNION || (op == INTERSECTION && parts[1] != null)) {
+                return AVLTree.this.join(leftRes, pivot, rightRes);
+            }
+            return AVLTree.this.join(leftRes, rightRes);
         }
-        return data;
     }
 
     /**
-     * Recursive method used to append nodes to a list in postorder
-     * @param here the current node in the tree
-     * @param data the list that is being appended to
-     * @return the new list after being added to
+     * Runs a set operation against another tree, taking over its nodes
+     * @param op UNION, INTERSECTION or DIFFERENCE
+     * @param other the other tree, left empty
+     * @param parallel whether to use the common fork-join pool
      */
-    private List<T> postorder(Node<T> here, List<T> data) {
-        if (here != null) {
-            postorder(here.getLeft(), data);
-            postorder(here.getRight(), data);
-            data.add(here.getData());
+    private void setOperation(int op, AVLTree<T> other, boolean parallel) {
+        if (other == null) { throw new IllegalArgumentException(); }
+        if (other == this) {
+            if (op == DIFFERENCE) { clear(); }
+            return;
         }
-        return data;
+        AtomicInteger matches = new AtomicInteger();
+        SetOperation task = new SetOperation(op, root, other.root, matches,
+                parallel);
+        root = parallel ? ForkJoinPool.commonPool().invoke(task)
+                : task.compute();
+        if (op == UNION) {
+            size += other.size - matches.get();
+        } else if (op == INTERSECTION) {
+            size = matches.get();
+        } else {
+            size -= matches.get();
+        }
+        other.clear();
     }
 
     /**
-     * Recursive method used to append nodes to a list in order
-     * @param here the current node in the tree
-     * @param data the list that is being appended to
-     * @return the new list after being added to
+     * Copies the items from an iterator into a list
+     * @param it the iterator to drain
+     * @return a new list of the items in iteration order
      */
-    private List<T> inorder(Node<T> here, List<T> data) {
-        if (here != null) {
-            inorder(here.getLeft(), data);
-            data.add(here.getData());
-            inorder(here.getRight(), data);
-        }
+    private List<T> toList(Iterator<T> it) {
+        List<T> data = new ArrayList<T>(size);
+        while (it.hasNext()) { data.add(it.next()); }
         return data;
     }
 
     @Override
     public void add(T data) {
         if (data == null) { throw new IllegalArgumentException(); }
-        if (size == 0) {
+        if (root == null) {
             root = new Node<T>(data);
             root.setBalanceFactor(0);
             root.setHeight(0);
             size++;
             return;
         }
-        if (contains(data)) { return; }
+        Node<T>[] path = new Node[root.getHeight() + 1];
+        int depth = 0;
         Node<T> temp = root;
-        boolean flag = true;
-        while (flag) {
-            if (data.compareTo(temp.getData()) > 0) {
-                if (temp.getRight() != null) {
-                    temp = temp.getRight();
-                } else {
-                    temp.setRight(new Node<T>(data));
-                    flag = false;
-                }
-            } else {
-                if (temp.getLeft() != null) {
-                    temp = temp.getLeft();
-                } else {
-                    temp.setLeft(new Node<T>(data));
-                    flag = false;
-                }
-            }
+        int cmp = 0;
+        while (temp != null) {
+            cmp = data.compareTo(temp.getData());
+            if (cmp == 0) { return; }
+            path[depth++] = temp;
+            temp = cmp > 0 ? temp.getRight() : temp.getLeft();
+        }
+        Node<T> res = new Node<T>(data);
+        res.setHeight(0);
+        res.setBalanceFactor(0);
+        if (cmp > 0) {
+            path[depth - 1].setRight(res);
+        } else {
+            path[depth - 1].setLeft(res);
         }
         size++;
-        updateHeight(root, data);
-        root = balanceTree(root, data);
+        retrace(path, depth);
     }
 
     @Override
     public T remove(T data) {
         if (data == null) { throw new IllegalArgumentException(); }
-        if (size == 0) { return null; }
-        if (!contains(data)) { return null; }
-        Node<T> res = new Node<T>(null);
-        root = remove(root, data, res);
+        if (root == null) { return null; }
+        Node<T>[] path = new Node[root.getHeight() + 1];
+        int depth = 0;
+        Node<T> temp = root;
+        while (temp != null) {
+            int cmp = data.compareTo(temp.getData());
+            if (cmp == 0) { break; }
+            path[depth++] = temp;
+            temp = cmp > 0 ? temp.getRight() : temp.getLeft();
+        }
+        if (temp == null) { return null; }
+        T res = temp.getData();
+        if (temp.getLeft() != null && temp.getRight() != null) {
+            Node<T> target = temp;
+            path[depth++] = temp;
+            temp = temp.getRight();
+            while (temp.getLeft() != null) {
+                path[depth++] = temp;
+                temp = temp.getLeft();
+            }
+            target.setData(temp.getData());
+        }
+        replaceChild(depth > 0 ? path[depth - 1] : null, temp,
+                temp.getLeft() != null ? temp.getLeft() : temp.getRight());
         size--;
-        if (size != 0) {
-            updateHeight(root, data);
-            root = balanceTree(root, data);
+        retrace(path, depth);
+        return res;
+    }
+
+    /**
+     * Builds a tree from items in ascending order in O(n) by making the
+     * middle item the root of each subtree, rather than adding the items
+     * one by one. Equal neighbours are kept once.
+     * @param data the items in ascending order, none of which may be null
+     * @return a new tree holding the items
+     * @throws IllegalArgumentException if the items are not in ascending
+     * order
+     */
+    public static <T extends Comparable<T>> AVLTree<T> fromSorted(
+            Collection<? extends T> data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        List<T> items = new ArrayList<T>(data.size());
+        for (T item : data) {
+            if (item == null) { throw new IllegalArgumentException(); }
+            if (!items.isEmpty()) {
+                int cmp = items.get(items.size() - 1).compareTo(item);
+                if (cmp > 0) { throw new IllegalArgumentException(); }
+                if (cmp == 0) { continue; }
+            }
+            items.add(item);
         }
-        return res.getData();
+        AVLTree<T> res = new AVLTree<T>();
+        res.root = res.build(items, 0, items.size());
+        res.size = items.size();
+        return res;
+    }
+
+    /**
+     * Adds every item of another tree to this one. The nodes of other are
+     * reused, so it is left empty. Runs in O(m log(n / m + 1)) for trees
+     * of sizes m <= n.
+     * @param other the tree to take the items of
+     */
+    public void union(AVLTree<T> other) {
+        setOperation(UNION, other, false);
+    }
+
+    /**
+     * Adds every item of another tree to this one, combining the left and
+     * right subtrees concurrently on the common fork-join pool
+     * @param other the tree to take the items of, left empty
+     * @param parallel whether to run in parallel
+     */
+    public void union(AVLTree<T> other, boolean parallel) {
+        setOperation(UNION, other, parallel);
+    }
+
+    /**
+     * Keeps only the items that are also in another tree. The nodes of
+     * other are reused, so it is left empty. Runs in O(m log(n / m + 1))
+     * for trees of sizes m <= n.
+     * @param other the tree to intersect with
+     */
+    public void intersection(AVLTree<T> other) {
+        setOperation(INTERSECTION, other, false);
+    }
+
+    /**
+     * Keeps only the items that are also in another tree, optionally in
+     * parallel on the common fork-join pool
+     * @param other the tree to intersect with, left empty
+     * @param parallel whether to run in parallel
+     */
+    public void intersection(AVLTree<T> other, boolean parallel) {
+        setOperation(INTERSECTION, other, parallel);
+    }
+
+    /**
+     * Removes every item that is in another tree. The nodes of other are
+     * reused, so it is left empty. Runs in O(m log(n / m + 1)) for trees
+     * of sizes m <= n.
+     * @param other the tree of items to remove
+     */
+    public void difference(AVLTree<T> other) {
+        setOperation(DIFFERENCE, other, false);
+    }
+
+    /**
+     * Removes every item that is in another tree, optionally in parallel
+     * on the common fork-join pool
+     * @param other the tree of items to remove, left empty
+     * @param parallel whether to run in parallel
+     */
+    public void difference(AVLTree<T> other, boolean parallel) {
+        setOperation(DIFFERENCE, other, parallel);
     }
 
     @Override
     public T get(T data) {
         if (data == null) { throw new IllegalArgumentException(); }
-        if (root == null) { return null; }
         Node<T> temp = root;
-        while (true) {
-            if (temp.getData().equals(data)) {
-                return temp.getData();
-            } else if (temp.getLeft() == null && temp.getRight() == null) {
-                return null;
-            } else if (temp.getLeft() == null) {
-                temp = temp.getRight();
-            } else if (temp.getRight() == null) {
-                temp = temp.getLeft();
-            } else {
-                if (data.compareTo(temp.getData()) > 0) {
-                    temp = temp.getRight();
-                } else {
-                    temp = temp.getLeft();
-                }
-            }
+        while (temp != null) {
+            int cmp = data.compareTo(temp.getData());
+            if (cmp == 0) { return temp.getData(); }
+            temp = cmp > 0 ? temp.getRight() : temp.getLeft();
         }
+        return null;
     }
 
     @Override
     public boolean contains(T data) {
-        if (data == null) { throw new IllegalArgumentException(); }
-        return (get(data) != null && get(data).equals(data));
+        return get(data) != null;
     }
 
     @Override
@@ -355,35 +458,81 @@ public class AVLTree<T extends Comparable<T>> implements AVLInterface<T>,
 
     @Override
     public List<T> preorder() {
-        return preorder(root, new ArrayList<T>(size));
+        return toList(TreeIterators.preorder(root));
     }
 
     @Override
     public List<T> postorder() {
-        return postorder(root, new ArrayList<T>(size));
+        return toList(TreeIterators.postorder(root));
     }
 
     @Override
     public List<T> inorder() {
-        return inorder(root, new ArrayList<T>(size));
+        return toList(TreeIterators.inorder(root));
     }
 
     @Override
     public List<T> levelorder() {
-        ArrayList<T> list = new ArrayList<T>(size);
-        if (size == 0) { return list; }
-        int counter = 0;
-        Queue<Node<T>> queue = new LinkedList<Node<T>>();
-        queue.add(root);
-        Node<T> here;
-        while (!queue.isEmpty()) {
-            here = queue.remove();
-            list.add(counter, (T) here.getData());
-            counter++;
-            if (here.getLeft() != null) { queue.add(here.getLeft()); }
-            if (here.getRight() != null) { queue.add(here.getRight()); }
+        return toList(TreeIterators.levelorder(root));
+    }
+
+    /**
+     * Walks the tree in ascending order without copying it
+     * @return an iterator over every item
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return TreeIterators.inorder(root);
+    }
+
+    /**
+     * @return a lazy iterator over the tree in preorder
+     */
+    public Iterator<T> preorderIterator() {
+        return TreeIterators.preorder(root);
+    }
+
+    /**
+     * @return a lazy iterator over the tree in postorder
+     */
+    public Iterator<T> postorderIterator() {
+        return TreeIterators.postorder(root);
+    }
+
+    /**
+     * @return a lazy iterator over the tree in level order
+     */
+    public Iterator<T> levelorderIterator() {
+        return TreeIterators.levelorder(root);
+    }
+
+    /**
+     * Splits by subtree, so a parallel stream over the tree hands each
+     * worker a whole subtree without copying
+     * @return a spliterator over the tree in ascending order
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return TreeIterators.spliterator(root, size);
+    }
+
+    /**
+     * Iterates over the items from from inclusive to to exclusive,
+     * skipping every subtree that lies wholly outside the range
+     * @param from the lowest item to include
+     * @param to the item to stop before
+     * @return a view of the range, read lazily
+     */
+    public Iterable<T> range(final T from, final T to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException();
         }
-        return list;
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return TreeIterators.range(root, from, to);
+            }
+        };
     }
 
     @Override
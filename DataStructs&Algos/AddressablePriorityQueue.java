@@ -0,0 +1,45 @@
+/**
+ * A priority queue that hands back a handle for every item inserted, so
+ * the item can later be given a smaller key in place. Graph algorithms
+ * such as Prim's use this to update a vertex instead of queueing a
+ * duplicate.
+ */
+public interface AddressablePriorityQueue<T extends Comparable<? super T>>
+       extends PriorityQueueInterface<T> {
+
+    /**
+     * A reference to an item in the queue
+     * @param <T> the item type
+     */
+    interface Handle<T> {
+
+        /**
+         * @return the item the handle refers to
+         */
+        T getItem();
+
+        /**
+         * @return true if the item is still in the queue
+         */
+        boolean isLive();
+    }
+
+    /**
+     * Adds an item to the queue
+     * @param item the item to add, may not be null
+     * @return a handle for the item
+     */
+    Handle<T> push(T item);
+
+    /**
+     * Replaces an item with one that is no greater
+     * @param handle the handle of an item still in the queue
+     * @param item the new item, no greater than the current one
+     */
+    void decreaseKey(Handle<T> handle, T item);
+
+    /**
+     * @return the number of items in the queue
+     */
+    int size();
+}
@@ -0,0 +1,517 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Ordered set kept in a B+ tree. Every node holds up to order - 1 sorted
+ * keys in one array, so a lookup reads a handful of wide nodes and binary
+ * searches each one instead of following one pointer per level of a
+ * binary tree. Items live only in the leaves, which are linked left to
+ * right so in order traversal and range scans walk the leaves without
+ * going back up the tree. Inner nodes only route: every item in
+ * children[i + 1] is greater than or equal to keys[i], and every item in
+ * children[i] is less.
+ *
+ * Like AVLTree, adding an item that is already present does nothing.
+ */
+public class BPlusTree<T extends Comparable<? super T>> implements Iterable<T> {
+
+    private static final int DEFAULT_ORDER = 64;
+
+    /**
+     * A leaf or inner node. Both arrays have room for one key and one child
+     * more than the maximum so a node can overflow before it is split.
+     */
+    private static final class Node<T> {
+
+        private final Object[] keys;
+        private final Node<T>[] children;
+        private Node<T> next;
+        private int n;
+
+        /**
+         * Creates an empty node
+         * @param order the maximum number of children of an inner node
+         * @param leaf whether the node is a leaf
+         */
+        Node(int order, boolean leaf) {
+            keys = new Object[order];
+            children = leaf ? null : new Node[order + 1];
+        }
+
+        /**
+         * @return true if the node is a leaf
+         */
+        boolean isLeaf() {
+            return children == null;
+        }
+    }
+
+    private final int order;
+    private final int minKeys;
+    private Node<T> root;
+    private int size;
+    private int height;
+
+    /**
+     * Creates an empty tree whose nodes hold up to 63 keys
+     */
+    public BPlusTree() {
+        this(DEFAULT_ORDER);
+    }
+
+    /**
+     * Creates an empty tree
+     * @param order the maximum number of children of an inner node, at
+     *              least 4; every node holds at most order - 1 keys
+     */
+    public BPlusTree(int order) {
+        if (order < 4) { throw new IllegalArgumentException(); }
+        this.order = order;
+        minKeys = order / 2 - 1;
+        root = new Node<T>(order, true);
+    }
+
+    /**
+     * Builds a tree from items in ascending order in O(n), packing the
+     * leaves and then each level of inner nodes from left to right rather
+     * than adding the items one by one. Equal neighbours are kept once.
+     * @param data the items in ascending order, none of which may be null
+     * @param order the maximum number of children of an inner node
+     * @return a new tree holding the items
+     * @throws IllegalArgumentException if the items are not in ascending
+     * order
+     */
+    public static <T extends Comparable<? super T>> BPlusTree<T> fromSorted(
+            Collection<? extends T> data, int order) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        BPlusTree<T> res = new BPlusTree<T>(order);
+        List<T> items = new ArrayList<T>(data.size());
+        for (T item : data) {
+            if (item == null) { throw new IllegalArgumentException(); }
+            if (!items.isEmpty()) {
+                int cmp = items.get(items.size() - 1).compareTo(item);
+                if (cmp > 0) { throw new IllegalArgumentException(); }
+                if (cmp == 0) { continue; }
+            }
+            items.add(item);
+        }
+        if (items.isEmpty()) { return res; }
+        int count = (items.size() + order - 2) / (order - 1);
+        List<Node<T>> level = new ArrayList<Node<T>>(count);
+        List<Object> lows = new ArrayList<Object>(count);
+        Node<T> prev = null;
+        for (int i = 0, from = 0; i < count; i++) {
+            int to = (int) ((long) items.size() * (i + 1) / count);
+            Node<T> leaf = new Node<T>(order, true);
+            for (int j = from; j < to; j++) { leaf.keys[leaf.n++] = items.get(j); }
+            if (prev != null) { prev.next = leaf; }
+            level.add(leaf);
+            lows.add(leaf.keys[0]);
+            prev = leaf;
+            from = to;
+        }
+        int height = 0;
+        while (level.size() > 1) {
+            count = (level.size() + order - 1) / order;
+            List<Node<T>> parents = new ArrayList<Node<T>>(count);
+            List<Object> parentLows = new ArrayList<Object>(count);
+            for (int i = 0, from = 0; i < count; i++) {
+                int to = (int) ((long) level.size() * (i + 1) / count);
+                Node<T> inner = new Node<T>(order, false);
+                inner.children[0] = level.get(from);
+                for (int j = from + 1; j < to; j++) {
+                    inner.keys[inner.n] = lows.get(j);
+                    inner.children[++inner.n] = level.get(j);
+                }
+                parents.add(inner);
+                parentLows.add(lows.get(from));
+                from = to;
+            }
+            level = parents;
+            lows = parentLows;
+            height++;
+        }
+        res.root = level.get(0);
+        res.size = items.size();
+        res.height = height;
+        return res;
+    }
+
+    /**
+     * Builds a tree from items in ascending order using the default order
+     * @param data the items in ascending order, none of which may be null
+     * @return a new tree holding the items
+     * @throws IllegalArgumentException if the items are not in ascending
+     * order
+     */
+    public static <T extends Comparable<? super T>> BPlusTree<T> fromSorted(
+            Collection<? extends T> data) {
+        return fromSorted(data, DEFAULT_ORDER);
+    }
+
+    /**
+     * Finds a key in a node's sorted keys
+     * @param node the node to search
+     * @param data the key to search for
+     * @return the index of data if present, otherwise -(insertion point) - 1
+     */
+    private int search(Node<T> node, T data) {
+        int lo = 0;
+        int hi = node.n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = ((T) node.keys[mid]).compareTo(data);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -lo - 1;
+    }
+
+    /**
+     * Picks the child of an inner node whose range holds data
+     * @param node the inner node
+     * @param data the data that directs the descent
+     * @return the index of the child to descend into
+     */
+    private int childIndex(Node<T> node, T data) {
+        int i = search(node, data);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * Finds the leaf whose range holds data
+     * @param data the data that directs the descent
+     * @return the leaf
+     */
+    private Node<T> leafFor(T data) {
+        Node<T> temp = root;
+        while (!temp.isLeaf()) { temp = temp.children[childIndex(temp, data)]; }
+        return temp;
+    }
+
+    /**
+     * Splits a node that has overflowed into itself and a new right sibling
+     * @param node the node holding order keys
+     * @param low filled with the smallest item reachable from the new node
+     * @return the new right sibling
+     */
+    private Node<T> split(Node<T> node, Object[] low) {
+        Node<T> right = new Node<T>(order, node.isLeaf());
+        int mid = node.n / 2;
+        if (node.isLeaf()) {
+            right.n = node.n - mid;
+            System.arraycopy(node.keys, mid, right.keys, 0, right.n);
+            right.next = node.next;
+            node.next = right;
+            low[0] = right.keys[0];
+        } else {
+            right.n = node.n - mid - 1;
+            System.arraycopy(node.keys, mid + 1, right.keys, 0, right.n);
+            System.arraycopy(node.children, mid + 1, right.children, 0,
+                    right.n + 1);
+            low[0] = node.keys[mid];
+            for (int i = mid + 1; i <= node.n; i++) { node.children[i] = null; }
+        }
+        for (int i = mid; i < node.n; i++) { node.keys[i] = null; }
+        node.n = mid;
+        return right;
+    }
+
+    /**
+     * Adds an item to the set. Descends once, remembering the path, and
+     * splits full nodes on the way back up only as far as a split reaches.
+     * @param data the item to add
+     */
+    public void add(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T>[] path = new Node[height + 1];
+        int[] slots = new int[height + 1];
+        Node<T> temp = root;
+        for (int depth = 0; depth < height; depth++) {
+            path[depth] = temp;
+            slots[depth] = childIndex(temp, data);
+            temp = temp.children[slots[depth]];
+        }
+        int i = search(temp, data);
+        if (i >= 0) { return; }
+        i = -i - 1;
+        System.arraycopy(temp.keys, i, temp.keys, i + 1, temp.n - i);
+        temp.keys[i] = data;
+        temp.n++;
+        size++;
+        Object[] low = new Object[1];
+        for (int depth = height - 1; temp.n == order && depth >= 0; depth--) {
+            Node<T> right = split(temp, low);
+            Node<T> parent = path[depth];
+            int slot = slots[depth];
+            System.arraycopy(parent.keys, slot, parent.keys, slot + 1,
+                    parent.n - slot);
+            System.arraycopy(parent.children, slot + 1, parent.children,
+                    slot + 2, parent.n - slot);
+            parent.keys[slot] = low[0];
+            parent.children[slot + 1] = right;
+            parent.n++;
+            temp = parent;
+        }
+        if (temp.n == order) {
+            Node<T> right = split(temp, low);
+            root = new Node<T>(order, false);
+            root.keys[0] = low[0];
+            root.children[0] = temp;
+            root.children[1] = right;
+            root.n = 1;
+            height++;
+        }
+    }
+
+    /**
+     * Refills a child that has dropped below the minimum number of keys by
+     * borrowing from a sibling that can spare one, or else merging it with
+     * a sibling
+     * @param parent the inner node holding the child
+     * @param slot the index of the child in parent
+     */
+    private void fixUnderflow(Node<T> parent, int slot) {
+        Node<T> child = parent.children[slot];
+        Node<T> left = slot > 0 ? parent.children[slot - 1] : null;
+        Node<T> right = slot < parent.n ? parent.children[slot + 1] : null;
+        if (left != null && left.n > minKeys) {
+            System.arraycopy(child.keys, 0, child.keys, 1, child.n);
+            if (child.isLeaf()) {
+                child.keys[0] = left.keys[left.n - 1];
+                parent.keys[slot - 1] = child.keys[0];
+            } else {
+                System.arraycopy(child.children, 0, child.children, 1,
+                        child.n + 1);
+                child.keys[0] = parent.keys[slot - 1];
+                child.children[0] = left.children[left.n];
+                parent.keys[slot - 1] = left.keys[left.n - 1];
+                left.children[left.n] = null;
+            }
+            left.keys[--left.n] = null;
+            child.n++;
+        } else if (right != null && right.n > minKeys) {
+            if (child.isLeaf()) {
+                child.keys[child.n] = right.keys[0];
+                parent.keys[slot] = right.keys[1];
+            } else {
+                child.keys[child.n] = parent.keys[slot];
+                child.children[child.n + 1] = right.children[0];
+                parent.keys[slot] = right.keys[0];
+                System.arraycopy(right.children, 1, right.children, 0,
+                        right.n);
+                right.children[right.n] = null;
+            }
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+            right.keys[--right.n] = null;
+            child.n++;
+        } else if (left != null) {
+            merge(parent, slot - 1);
+        } else {
+            merge(parent, slot);
+        }
+    }
+
+    /**
+     * Merges two neighbouring children and drops the key between them
+     * @param parent the inner node holding the children
+     * @param slot the index of the left child; the right one is slot + 1
+     */
+    private void merge(Node<T> parent, int slot) {
+        Node<T> left = parent.children[slot];
+        Node<T> right = parent.children[slot + 1];
+        if (left.isLeaf()) {
+            System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+            left.n += right.n;
+            left.next = right.next;
+        } else {
+            left.keys[left.n] = parent.keys[slot];
+            System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+            System.arraycopy(right.children, 0, left.children, left.n + 1,
+                    right.n + 1);
+            left.n += right.n + 1;
+        }
+        System.arraycopy(parent.keys, slot + 1, parent.keys, slot,
+                parent.n - slot - 1);
+        System.arraycopy(parent.children, slot + 2, parent.children, slot + 1,
+                parent.n - slot - 1);
+        parent.n--;
+        parent.keys[parent.n] = null;
+        parent.children[parent.n + 1] = null;
+    }
+
+    /**
+     * Removes an item from the set. Descends once, remembering the path,
+     * and borrows or merges on the way back up only while nodes are left
+     * below the minimum.
+     * @param data the item to remove
+     * @return the item that was removed, null if it was not in the set
+     */
+    public T remove(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T>[] path = new Node[height + 1];
+        int[] slots = new int[height + 1];
+        Node<T> temp = root;
+        for (int depth = 0; depth < height; depth++) {
+            path[depth] = temp;
+            slots[depth] = childIndex(temp, data);
+            temp = temp.children[slots[depth]];
+        }
+        int i = search(temp, data);
+        if (i < 0) { return null; }
+        T res = (T) temp.keys[i];
+        System.arraycopy(temp.keys, i + 1, temp.keys, i, temp.n - i - 1);
+        temp.keys[--temp.n] = null;
+        size--;
+        for (int depth = height - 1; temp.n < minKeys && depth >= 0; depth--) {
+            fixUnderflow(path[depth], slots[depth]);
+            temp = path[depth];
+        }
+        if (!root.isLeaf() && root.n == 0) {
+            root = root.children[0];
+            height--;
+        }
+        return res;
+    }
+
+    /**
+     * Returns the item in the set equal to data
+     * @param data the item to search for
+     * @return the stored item, null if it is not in the set
+     */
+    public T get(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> leaf = leafFor(data);
+        int i = search(leaf, data);
+        return i >= 0 ? (T) leaf.keys[i] : null;
+    }
+
+    /**
+     * @param data the item to search for
+     * @return true if the item is in the set
+     */
+    public boolean contains(T data) {
+        return get(data) != null;
+    }
+
+    /**
+     * @return true if the set is empty
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * @return the number of items in the set
+     */
+    public int size() { return size; }
+
+    /**
+     * @return the number of inner levels above the leaves, 0 when the root
+     * is a leaf
+     */
+    public int height() { return height; }
+
+    /**
+     * Removes every item
+     */
+    public void clear() {
+        root = new Node<T>(order, true);
+        size = 0;
+        height = 0;
+    }
+
+    /**
+     * @return a new list of the items in ascending order
+     */
+    public List<T> inorder() {
+        List<T> res = new ArrayList<T>(size);
+        for (T item : this) { res.add(item); }
+        return res;
+    }
+
+    /**
+     * Iterates over the items from from inclusive to to exclusive, finding
+     * the first leaf with one descent and then walking the leaf links
+     * @param from the lowest item to include
+     * @param to the item to stop before
+     * @return a view of the range, read lazily
+     */
+    public Iterable<T> range(final T from, final T to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException();
+        }
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                Node<T> leaf = leafFor(from);
+                int i = search(leaf, from);
+                return new LeafIterator(leaf, i >= 0 ? i : -i - 1, to);
+            }
+        };
+    }
+
+    /**
+     * Walks the leaves in ascending order without copying
+     * @return an iterator over every item
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Node<T> temp = root;
+        while (!temp.isLeaf()) { temp = temp.children[0]; }
+        return new LeafIterator(temp, 0, null);
+    }
+
+    /**
+     * Iterator that follows the leaf links, stopping at an optional bound
+     */
+    private class LeafIterator implements Iterator<T> {
+
+        private Node<T> leaf;
+        private int index;
+        private final T to;
+
+        /**
+         * Creates an iterator
+         * @param leaf the leaf to start in
+         * @param index the index of the first item in leaf
+         * @param to the item to stop before, null to run to the end
+         */
+        LeafIterator(Node<T> leaf, int index, T to) {
+            this.leaf = leaf;
+            this.index = index;
+            this.to = to;
+            skipExhausted();
+        }
+
+        /**
+         * Moves past leaves that have no items left
+         */
+        private void skipExhausted() {
+            while (leaf != null && index >= leaf.n) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null
+                    && (to == null || ((T) leaf.keys[index]).compareTo(to) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) { throw new NoSuchElementException(); }
+            T res = (T) leaf.keys[index++];
+            skipExhausted();
+            return res;
+        }
+    }
+}
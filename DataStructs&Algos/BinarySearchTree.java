@@ -1,192 +1,361 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class BinarySearchTree<T extends Comparable<T>> implements BSTInterface<T> {
+/**
+ * Binary search tree whose operations all run iteratively, so a tree
+ * that has degenerated into a list costs time but never stack. Every
+ * node keeps the height of its subtree, fixed up on the way back along
+ * the path of each insertion and removal, stopping as soon as a height
+ * is unchanged, and by each rotation, so height is O(1).
+ *
+ * A BalanceMode can be chosen when the tree is created to keep skewed or
+ * sorted input from degenerating.
+ */
+public class BinarySearchTree<T extends Comparable<T>> implements BSTInterface<T>,
+       Iterable<T> {
 
-    private Node<T> root, tempNode;
-    private int size = 0;
-    private int counter;
-    private ArrayList<T> list;
-    private Queue<Node<T>> queue;
+    /**
+     * How the tree keeps itself balanced
+     */
+    public enum BalanceMode {
+        /**
+         * Never restructures; the shape depends on insertion order
+         */
+        NONE,
+        /**
+         * Splays every item that is added, removed or looked up to the
+         * root, giving amortized O(log n) operations and keeping recently
+         * used items near the top
+         */
+        SPLAY,
+        /**
+         * Treap: each node gets a random priority when it is created, and
+         * the tree is kept in heap order on priority, giving expected
+         * O(log n) depth whatever the insertion order
+         */
+        TREAP
+    }
 
     /**
-     * Recursive private method that searches a BST and returns a node that
-     * contains a given data. Returns null if the Node is not found.
-     * @param data the data that is being searched for
-     * @param here the current node in the tree
-     * @return the node that contains data. Null if the data is not found
+     * A node of a treap, with the priority it was given
      */
-    private Node<T> search(T data, Node<T> here) {
-        if (here == null) { return null; }
-        if (here.getData().equals(data)) {
-            return here;
-        } else if (here.getData().compareTo(data) > 0) {
-            return search(data, here.getLeft());
-        } else {
-            return search(data, here.getRight());
+    private static final class TreapNode<T extends Comparable<T>>
+        extends Node<T> {
+
+        private final long priority = ThreadLocalRandom.current().nextLong();
+
+        /**
+         * Creates a leaf
+         * @param data the data held by the node
+         */
+        TreapNode(T data) {
+            super(data);
         }
     }
 
+    private final BalanceMode mode;
+    private Node<T> root;
+    private int size = 0;
+
     /**
-     * Recursive add method. This is used as the backing for the public
-     * add method.
-     * @param here the current node in the tree
-     * @param data the data that is being added to the tree
+     * Creates an empty tree that never rebalances
      */
-    private void add(Node<T> here, T data) {
-        if (data.compareTo(here.getData()) < 0) {
-            if (here.getLeft() != null) {
-                add(here.getLeft(), data);
-            } else {
-                here.setLeft(new Node<T>(data));
-            }
-        } else if (data.compareTo(here.getData()) > 0) {
-            if (here.getRight() != null) {
-                add(here.getRight(), data);
-            } else {
-                here.setRight(new Node<T>(data));
-            }
-        }
+    public BinarySearchTree() {
+        this(BalanceMode.NONE);
+    }
+
+    /**
+     * Creates an empty tree
+     * @param mode how the tree keeps itself balanced
+     */
+    public BinarySearchTree(BalanceMode mode) {
+        if (mode == null) { throw new IllegalArgumentException(); }
+        this.mode = mode;
+    }
+
+    /**
+     * Creates a leaf of the kind the tree's mode needs
+     * @param data the data held by the node
+     * @return the new node
+     */
+    private Node<T> newNode(T data) {
+        Node<T> res = mode == BalanceMode.TREAP ? new TreapNode<T>(data)
+                : new Node<T>(data);
+        res.setHeight(0);
+        return res;
+    }
+
+    /**
+     * @param aNode a node of a treap
+     * @return the node's priority
+     */
+    private long priority(Node<T> aNode) {
+        return ((TreapNode<T>) aNode).priority;
     }
 
     /**
-     * Recursive method that is used as the backing for the public
-     * remove method. Mainly useful for its Pointer Reassignment
-     * which allows for easy access to parent nodes. Returns the
-     * new child node for each parent in the tree that is effected
-     * by the removal of a node.
-     * @param data the data that is contained by the node that is
-     *             being removed
-     * @param here the current node in the tree
-     * @return The updated child nodes for each node in the branch
-     * effected by the removal
+     * @param aNode a node, possibly null
+     * @return the height of aNode, -1 for null
      */
-    private Node<T> remove(T data, Node<T> here) {
+    private int heightOf(Node<T> aNode) {
+        return aNode == null ? -1 : aNode.getHeight();
+    }
+
+    /**
+     * Recalculates the height of a node from its children
+     * @param aNode the node to update
+     * @return true if the height changed
+     */
+    private boolean update(Node<T> aNode) {
+        int res = Math.max(heightOf(aNode.getLeft()),
+                heightOf(aNode.getRight())) + 1;
+        if (res == aNode.getHeight()) { return false; }
+        aNode.setHeight(res);
+        return true;
+    }
+
+    /**
+     * Updates the heights of the nodes on a path, deepest first, stopping
+     * at the first one whose height is unchanged
+     * @param path the ancestors of a changed subtree, deepest on top
+     */
+    private void updatePath(Deque<Node<T>> path) {
+        while (!path.isEmpty() && update(path.pop())) { }
+    }
+
+    /**
+     * Bottom-up splay: finds the node holding data, or the last node on
+     * the search path if data is absent, then rotates it to the top of a
+     * subtree two levels at a time, back up the path it was reached by
+     * @param here the root of the subtree, may be null
+     * @param data the item to splay on
+     * @return the new root of the subtree
+     */
+    private Node<T> splay(Node<T> here, T data) {
         if (here == null) { return null; }
-        if (here.getData().equals(data)) {
-            if ((here.getLeft() == null) && (here.getRight() == null)) {
-                return null;
-            } else if (here.getRight() == null) {
-                return here.getLeft();
-            } else if (here.getLeft() == null) {
-                return here.getRight();
+        Deque<Node<T>> path = new ArrayDeque<Node<T>>();
+        while (true) {
+            int cmp = data.compareTo(here.getData());
+            Node<T> next = cmp < 0 ? here.getLeft()
+                    : cmp > 0 ? here.getRight() : null;
+            if (next == null) { break; }
+            path.push(here);
+            here = next;
+        }
+        while (!path.isEmpty()) {
+            Node<T> parent = path.pop();
+            Node<T> grand = path.poll();
+            if (grand == null) {
+                rotateUp(here, parent);
             } else {
-                tempNode = highestNode(here.getLeft());
-                here.setData(tempNode.getData());
-                here.setLeft(remove(here.getData(), here.getLeft()));
-                return here;
+                if ((grand.getLeft() == parent) == (parent.getLeft() == here)) {
+                    rotateUp(parent, grand);
+                    rotateUp(here, parent);
+                } else {
+                    replaceChild(grand, parent, rotateUp(here, parent));
+                    rotateUp(here, grand);
+                }
+                if (!path.isEmpty()) { replaceChild(path.peek(), grand, here); }
             }
-        } else if (here.getData().compareTo(data) > 0) {
-            here.setLeft(remove(data, here.getLeft()));
-            return here;
-        } else {
-            here.setRight(remove(data, here.getRight()));
-            return here;
         }
+        return here;
     }
 
     /**
-     * Recursive method used simply to find the highest data
-     * below a given node. Mainly useful for finding predcessors
-     * @param here the current node in the tree
-     * @return the node with the highest value starting with the given node
+     * Rotates a node down to the left, its right child taking its place
+     * @param aNode the node to rotate
+     * @return the new parent of the rotated subtree
      */
-    private Node<T> highestNode(Node<T> here) {
-        if (here.getRight() != null) {
-            return highestNode(here.getRight());
-        } else { return here; }
+    private Node<T> rotateLeft(Node<T> aNode) {
+        Node<T> child = aNode.getRight();
+        aNode.setRight(child.getLeft());
+        child.setLeft(aNode);
+        update(aNode);
+        update(child);
+        return child;
     }
 
     /**
-     * Recursive method used to append nodes to a list in preorder
-     * @param here the current node in the tree
-     * @param data the list that is being appended to
-     * @return the new list after being added to
+     * Rotates a node down to the right, its left child taking its place
+     * @param aNode the node to rotate
+     * @return the new parent of the rotated subtree
      */
-    private List<T> preorder(Node<T> here, List<T> data) {
-        if (here != null) {
-            data.add(here.getData());
-            preorder(here.getLeft(), data);
-            preorder(here.getRight(), data);
-        }
-        return data;
+    private Node<T> rotateRight(Node<T> aNode) {
+        Node<T> child = aNode.getLeft();
+        aNode.setLeft(child.getRight());
+        child.setRight(aNode);
+        update(aNode);
+        update(child);
+        return child;
     }
 
     /**
-     * Recursive method used to append nodes to a list in postorder
-     * @param here the current node in the tree
-     * @param data the list that is being appended to
-     * @return the new list after being added to
+     * Rotates a child up over its parent
+     * @param child the node to rotate up
+     * @param parent the child's parent
+     * @return child, now the parent of the rotated subtree
      */
-    private List<T> postorder(Node<T> here, List<T> data) {
-        if (here != null) {
-            postorder(here.getLeft(), data);
-            postorder(here.getRight(), data);
-            data.add(here.getData());
-        }
-        return data;
+    private Node<T> rotateUp(Node<T> child, Node<T> parent) {
+        return parent.getLeft() == child ? rotateRight(parent)
+                : rotateLeft(parent);
     }
 
     /**
-     * Recursive method used to append nodes to a list in order
-     * @param here the current node in the tree
-     * @param data the list that is being appended to
-     * @return the new list after being added to
+     * Points a parent at a new child in place of an old one
+     * @param parent the parent, null if the old child is the root
+     * @param oldChild the child being replaced
+     * @param newChild the node taking its place, may be null
      */
-    private List<T> inorder(Node<T> here, List<T> data) {
-        if (here != null) {
-            inorder(here.getLeft(), data);
-            data.add(here.getData());
-            inorder(here.getRight(), data);
+    private void replaceChild(Node<T> parent, Node<T> oldChild,
+            Node<T> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.getLeft() == oldChild) {
+            parent.setLeft(newChild);
+        } else {
+            parent.setRight(newChild);
         }
-        return data;
     }
 
     /**
-     * Method used to find the height of a given node
-     * @param here the current node in the tree
-     * @return returns the hight of the node. If the tree has one
-     * node, returns 0. If the tree is empty, returns -1
+     * Adds an item in splay mode by splaying the tree on it and, if it is
+     * not already there, splitting the tree around a new root
+     * @param data the item to add
      */
-    private int getHeight(Node<T> here) {
-        if (here != null) {
-            if (here.getLeft() == null && here.getRight() == null) { return 0; }
-            counter = 1 + Math.max(getHeight(here.getLeft()),
-                    getHeight(here.getRight()));
-            return counter;
-        } else { return -1; }
+    private void splayAdd(T data) {
+        root = splay(root, data);
+        int cmp = data.compareTo(root.getData());
+        if (cmp == 0) { return; }
+        Node<T> res = newNode(data);
+        if (cmp < 0) {
+            res.setLeft(root.getLeft());
+            res.setRight(root);
+            root.setLeft(null);
+        } else {
+            res.setRight(root.getRight());
+            res.setLeft(root);
+            root.setRight(null);
+        }
+        update(root);
+        update(res);
+        root = res;
+        size++;
     }
 
     @Override
     public void add(T data) {
-        if (size == 0) {
-            root = new Node<T>(data);
+        if (data == null) { throw new IllegalArgumentException(); }
+        if (root == null) {
+            root = newNode(data);
+            size = 1;
+            return;
+        }
+        if (mode == BalanceMode.SPLAY) {
+            splayAdd(data);
+            return;
+        }
+        Deque<Node<T>> path = new ArrayDeque<Node<T>>();
+        Node<T> temp = root;
+        int cmp = 0;
+        while (temp != null) {
+            cmp = data.compareTo(temp.getData());
+            if (cmp == 0) { return; }
+            path.push(temp);
+            temp = cmp > 0 ? temp.getRight() : temp.getLeft();
+        }
+        Node<T> res = newNode(data);
+        if (cmp > 0) {
+            path.peek().setRight(res);
         } else {
-            add(root, data);
+            path.peek().setLeft(res);
         }
         size++;
+        if (mode == BalanceMode.TREAP) {
+            while (!path.isEmpty() && priority(path.peek()) < priority(res)) {
+                Node<T> parent = path.pop();
+                replaceChild(path.peek(), parent, rotateUp(res, parent));
+            }
+        }
+        updatePath(path);
     }
 
-
     @Override
     public T remove(T data) {
-        if (!contains(data)) { return null; }
-        root = remove(data, root);
-        if (root != null) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        if (root == null) { return null; }
+        if (mode == BalanceMode.SPLAY) {
+            root = splay(root, data);
+            if (data.compareTo(root.getData()) != 0) { return null; }
+            T res = root.getData();
+            if (root.getLeft() == null) {
+                root = root.getRight();
+            } else {
+                Node<T> right = root.getRight();
+                root = splay(root.getLeft(), data);
+                root.setRight(right);
+                update(root);
+            }
             size--;
-            return data;
-        } else {
-            return null;
+            return res;
+        }
+        Deque<Node<T>> path = new ArrayDeque<Node<T>>();
+        Node<T> temp = root;
+        while (temp != null) {
+            int cmp = data.compareTo(temp.getData());
+            if (cmp == 0) { break; }
+            path.push(temp);
+            temp = cmp > 0 ? temp.getRight() : temp.getLeft();
+        }
+        if (temp == null) { return null; }
+        T res = temp.getData();
+        int above = path.size();
+        if (mode == BalanceMode.TREAP) {
+            while (temp.getLeft() != null && temp.getRight() != null) {
+                Node<T> top = rotateUp(priority(temp.getLeft())
+                        > priority(temp.getRight())
+                        ? temp.getLeft() : temp.getRight(), temp);
+                replaceChild(path.peek(), temp, top);
+                path.push(top);
+            }
+        } else if (temp.getLeft() != null && temp.getRight() != null) {
+            Node<T> target = temp;
+            path.push(temp);
+            temp = temp.getLeft();
+            while (temp.getRight() != null) {
+                path.push(temp);
+                temp = temp.getRight();
+            }
+            target.setData(temp.getData());
         }
+        replaceChild(path.peek(), temp,
+                temp.getLeft() != null ? temp.getLeft() : temp.getRight());
+        size--;
+        // nodes rotated above temp got heights from before it was unlinked
+        while (path.size() > above) { update(path.pop()); }
+        updatePath(path);
+        return res;
     }
 
     @Override
     public T get(T data) {
-        tempNode = search(data, root);
-        if (tempNode == null) { return null; }
-        return tempNode.getData();
+        if (data == null) { throw new IllegalArgumentException(); }
+        if (mode == BalanceMode.SPLAY) {
+            root = splay(root, data);
+            return root != null && data.compareTo(root.getData()) == 0
+                    ? root.getData() : null;
+        }
+        Node<T> temp = root;
+        while (temp != null) {
+            int cmp = data.compareTo(temp.getData());
+            if (cmp == 0) { return temp.getData(); }
+            temp = cmp > 0 ? temp.getRight() : temp.getLeft();
+        }
+        return null;
     }
 
     @Override
@@ -199,37 +368,94 @@ public class BinarySearchTree<T extends Comparable<T>> implements BSTInterface<T
         return size;
     }
 
+    /**
+     * Copies the items from an iterator into a list
+     * @param it the iterator to drain
+     * @return a new list of the items in iteration order
+     */
+    private List<T> toList(Iterator<T> it) {
+        List<T> data = new ArrayList<T>(size);
+        while (it.hasNext()) { data.add(it.next()); }
+        return data;
+    }
+
     @Override
     public List<T> preorder() {
-        return preorder(root, new ArrayList<T>(size));
+        return toList(TreeIterators.preorder(root));
     }
 
     @Override
     public List<T> postorder() {
-        return postorder(root, new ArrayList<T>(size));
+        return toList(TreeIterators.postorder(root));
     }
 
     @Override
     public List<T> inorder() {
-        return inorder(root, new ArrayList<T>(size));
+        return toList(TreeIterators.inorder(root));
     }
 
     @Override
     public List<T> levelorder() {
-        list = new ArrayList<T>(size);
-        if (size == 0) { return list; }
-        counter = 0;
-        queue = new LinkedList<Node<T>>();
-        queue.add(root);
-        Node<T> here;
-        while (!queue.isEmpty()) {
-            here = queue.remove();
-            list.add(counter, (T) here.getData());
-            counter++;
-            if (here.getLeft() != null) { queue.add(here.getLeft()); }
-            if (here.getRight() != null) { queue.add(here.getRight()); }
-        }
-        return list;
+        return toList(TreeIterators.levelorder(root));
+    }
+
+    /**
+     * Walks the tree in ascending order without copying it
+     * @return an iterator over every item
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return TreeIterators.inorder(root);
+    }
+
+    /**
+     * @return a lazy iterator over the tree in preorder
+     */
+    public Iterator<T> preorderIterator() {
+        return TreeIterators.preorder(root);
+    }
+
+    /**
+     * @return a lazy iterator over the tree in postorder
+     */
+    public Iterator<T> postorderIterator() {
+        return TreeIterators.postorder(root);
+    }
+
+    /**
+     * @return a lazy iterator over the tree in level order
+     */
+    public Iterator<T> levelorderIterator() {
+        return TreeIterators.levelorder(root);
+    }
+
+    /**
+     * Splits by subtree, so a parallel stream over the tree hands each
+     * worker a whole subtree without copying
+     * @return a spliterator over the tree in ascending order
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return TreeIterators.spliterator(root, size);
+    }
+
+    /**
+     * Iterates over the items from from inclusive to to exclusive,
+     * skipping every subtree that lies wholly outside the range
+     * @param from the lowest item to include
+     * @param to the item to stop before
+     * @return a view of the range, read lazily
+     */
+    public Iterable<T> range(final T from, final T to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException();
+        }
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return TreeIterators.range(root, from, to);
+            }
+        };
     }
 
     @Override
@@ -238,10 +464,12 @@ public class BinarySearchTree<T extends Comparable<T>> implements BSTInterface<T
         size = 0;
     }
 
+    /**
+     * @return the height of the tree, -1 if it is empty
+     */
     @Override
     public int height() {
-        counter = 0;
-        return getHeight(root);
+        return heightOf(root);
     }
 
     @Override
@@ -0,0 +1,283 @@
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * SkipList with one node per item. Instead of a separate node on every
+ * level linked by down pointers, each node holds an array of forward
+ * references, one per level it is on. An item of height h costs one
+ * node and one array rather than h nodes, and a search only follows
+ * forward references, reading the next level from the node it is
+ * already on instead of chasing a down pointer to another object.
+ *
+ * Every forward reference also records its width: how many items it
+ * skips over on the bottom level. Summing widths along a search gives the
+ * position reached, so rank, getAt and removeAt run in expected
+ * O(log n) like get.
+ *
+ * Behaves like SkipList, including allowing duplicate items.
+ */
+public class CompactSkipList<T extends Comparable<? super T>>
+    implements SkipListInterface<T> {
+
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * An item and its forward references, one per level it is on. The
+     * width of a reference is the difference between the positions of the
+     * two nodes, where the end of the list counts as position size + 1.
+     */
+    private static final class Node<T> {
+
+        private final T data;
+        private final Node<T>[] next;
+        private final int[] width;
+
+        /**
+         * Creates a node
+         * @param data the item, null for the head
+         * @param levels the number of levels the node is on
+         */
+        Node(T data, int levels) {
+            this.data = data;
+            next = new Node[levels];
+            width = new int[levels];
+        }
+    }
+
+    private final CoinFlipper coinFlipper;
+    private Node<T> head;
+    private int levels;
+    private int size;
+
+    /**
+     * constructs a CompactSkipList object that stores data in ascending
+     * order. when an item is inserted, the flipper is called until it
+     * returns a tails; if for an item the flipper returns n heads, the
+     * corresponding node is on n + 1 levels
+     *
+     * @param coinFlipper the source of randomness
+     */
+    public CompactSkipList(CoinFlipper coinFlipper) {
+        this.coinFlipper = coinFlipper;
+        clear();
+    }
+
+    /**
+     * Finds the last node before data on every level in use
+     * @param data the data being searched for
+     * @param ranks filled with the position of each predecessor, where the
+     *              head is position 0 and the first item position 1
+     * @return the predecessor of data on each level, the head where there
+     * is none
+     */
+    private Node<T>[] predecessors(T data, int[] ranks) {
+        Node<T>[] preds = new Node[MAX_LEVEL];
+        Node<T> temp = head;
+        int pos = 0;
+        for (int level = levels - 1; level >= 0; level--) {
+            while (temp.next[level] != null
+                    && temp.next[level].data.compareTo(data) < 0) {
+                pos += temp.width[level];
+                temp = temp.next[level];
+            }
+            preds[level] = temp;
+            ranks[level] = pos;
+        }
+        return preds;
+    }
+
+    /**
+     * Finds the last node before a position on every level in use
+     * @param position the position being searched for, 1 to size
+     * @return the predecessor of position on each level
+     */
+    private Node<T>[] predecessors(int position) {
+        Node<T>[] preds = new Node[MAX_LEVEL];
+        Node<T> temp = head;
+        int pos = 0;
+        for (int level = levels - 1; level >= 0; level--) {
+            while (temp.next[level] != null
+                    && pos + temp.width[level] < position) {
+                pos += temp.width[level];
+                temp = temp.next[level];
+            }
+            preds[level] = temp;
+        }
+        return preds;
+    }
+
+    /**
+     * Unlinks a node from every level, fixing up the widths of the
+     * references that skipped over it
+     * @param preds the predecessors of target on each level in use
+     * @param target the node to unlink
+     */
+    private void unlink(Node<T>[] preds, Node<T> target) {
+        for (int level = 0; level < levels; level++) {
+            if (level < target.next.length) {
+                preds[level].width[level] += target.width[level] - 1;
+                preds[level].next[level] = target.next[level];
+            } else {
+                preds[level].width[level]--;
+            }
+        }
+        while (levels > 1 && head.next[levels - 1] == null) { levels--; }
+        size--;
+    }
+
+    @Override
+    public T first() {
+        return head.next[0] == null ? null : head.next[0].data;
+    }
+
+    @Override
+    public T last() {
+        Node<T> temp = head;
+        for (int level = levels - 1; level >= 0; level--) {
+            while (temp.next[level] != null) { temp = temp.next[level]; }
+        }
+        return temp.data;
+    }
+
+    @Override
+    public boolean contains(T data) {
+        return get(data) != null;
+    }
+
+    @Override
+    public void put(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        int height = 1;
+        while (height < MAX_LEVEL
+                && coinFlipper.flipCoin().equals(CoinFlipper.Coin.HEADS)) {
+            height++;
+        }
+        int[] ranks = new int[MAX_LEVEL];
+        Node<T>[] preds = predecessors(data, ranks);
+        for (int level = levels; level < height; level++) {
+            preds[level] = head;
+            ranks[level] = 0;
+            head.width[level] = size + 1;
+        }
+        if (height > levels) { levels = height; }
+        Node<T> res = new Node<T>(data, height);
+        int position = ranks[0] + 1;
+        for (int level = 0; level < levels; level++) {
+            if (level < height) {
+                res.next[level] = preds[level].next[level];
+                res.width[level] = preds[level].width[level]
+                        - (position - ranks[level]) + 1;
+                preds[level].next[level] = res;
+                preds[level].width[level] = position - ranks[level];
+            } else {
+                preds[level].width[level]++;
+            }
+        }
+        size++;
+    }
+
+    @Override
+    public T get(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> temp = head;
+        for (int level = levels - 1; level >= 0; level--) {
+            while (temp.next[level] != null
+                    && temp.next[level].data.compareTo(data) < 0) {
+                temp = temp.next[level];
+            }
+        }
+        temp = temp.next[0];
+        return temp != null && temp.data.equals(data) ? temp.data : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        head = new Node<T>(null, MAX_LEVEL);
+        head.width[0] = 1;
+        levels = 1;
+        size = 0;
+    }
+
+    @Override
+    public Set<T> dataSet() {
+        Set<T> res = new HashSet<T>();
+        for (Node<T> temp = head.next[0]; temp != null; temp = temp.next[0]) {
+            res.add(temp.data);
+        }
+        return res;
+    }
+
+    @Override
+    public T remove(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T>[] preds = predecessors(data, new int[MAX_LEVEL]);
+        Node<T> target = preds[0].next[0];
+        if (target == null || !target.data.equals(data)) { return null; }
+        unlink(preds, target);
+        return target.data;
+    }
+
+    /**
+     * Finds the index of an item in ascending order
+     * @param data the item to search for
+     * @return the 0-based index of the first occurrence of data, -1 if the
+     * item is not in the list
+     */
+    public int rank(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> temp = head;
+        int pos = 0;
+        for (int level = levels - 1; level >= 0; level--) {
+            while (temp.next[level] != null
+                    && temp.next[level].data.compareTo(data) < 0) {
+                pos += temp.width[level];
+                temp = temp.next[level];
+            }
+        }
+        temp = temp.next[0];
+        return temp != null && temp.data.equals(data) ? pos : -1;
+    }
+
+    /**
+     * Gets the item at an index in ascending order
+     * @param index the 0-based index
+     * @return the item at index
+     * @throws IndexOutOfBoundsException if index is not in [0, size)
+     */
+    public T getAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        Node<T> temp = head;
+        int pos = 0;
+        for (int level = levels - 1; level >= 0; level--) {
+            while (temp.next[level] != null
+                    && pos + temp.width[level] <= index + 1) {
+                pos += temp.width[level];
+                temp = temp.next[level];
+            }
+        }
+        return temp.data;
+    }
+
+    /**
+     * Removes the item at an index in ascending order
+     * @param index the 0-based index
+     * @return the item that was removed
+     * @throws IndexOutOfBoundsException if index is not in [0, size)
+     */
+    public T removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        Node<T>[] preds = predecessors(index + 1);
+        Node<T> target = preds[0].next[0];
+        unlink(preds, target);
+        return target.data;
+    }
+}
@@ -0,0 +1,319 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe open addressing hash map. The table is split into
+ * independently locked segments chosen by the high bits of the hash, so
+ * writers on different segments never contend. Reads take no lock: every
+ * slot is an immutable entry published through an AtomicReferenceArray,
+ * and a segment is only resized by building a complete new table and then
+ * swapping its volatile reference, so a reader never sees a half built
+ * table.
+ */
+public class ConcurrentHashMap<K, V> implements HashMapInterface<K, V> {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    /**
+     * Immutable key/value pair stored in a slot
+     */
+    private static final class Slot {
+
+        private final Object key;
+        private final Object value;
+        private final int hash;
+
+        /**
+         * Creates a slot
+         * @param key the key
+         * @param value the value
+         * @param hash the spread hash of key
+         */
+        Slot(Object key, Object value, int hash) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+        }
+    }
+
+    private static final Slot TOMBSTONE = new Slot(null, null, 0);
+
+    /**
+     * One lock stripe of the map with its own linear probing table
+     */
+    private static final class Segment extends ReentrantLock {
+
+        private volatile AtomicReferenceArray<Slot> table;
+        private volatile int count;
+        private int removed;
+
+        /**
+         * Creates an empty segment
+         * @param length the starting table length, a power of two
+         */
+        Segment(int length) {
+            table = new AtomicReferenceArray<Slot>(length);
+        }
+    }
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    /**
+     * Creates an empty map with 16 segments
+     */
+    public ConcurrentHashMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Creates an empty map
+     * @param concurrencyLevel the expected number of concurrent writers,
+     *                         rounded up to a power of two segments
+     */
+    public ConcurrentHashMap(int concurrencyLevel) {
+        if (concurrencyLevel < 1) { throw new IllegalArgumentException(); }
+        int n = 1;
+        int bits = 0;
+        while (n < concurrencyLevel) {
+            n <<= 1;
+            bits++;
+        }
+        segments = new Segment[n];
+        segmentShift = 32 - bits;
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment(startingLength());
+        }
+    }
+
+    /**
+     * @return the smallest power of two table length that holds
+     * STARTING_SIZE slots
+     */
+    private static int startingLength() {
+        int n = 2;
+        while (n < STARTING_SIZE) { n <<= 1; }
+        return n;
+    }
+
+    /**
+     * Mixes the bits of a hash code so that both the high bits used to pick
+     * a segment and the low bits used to pick a slot are well distributed
+     * @param key the key being hashed
+     * @return the spread hash
+     */
+    private static int spread(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @param hash a spread hash
+     * @return the segment that owns hash
+     */
+    private Segment segmentFor(int hash) {
+        return segmentShift == 32 ? segments[0]
+                : segments[hash >>> segmentShift];
+    }
+
+    /**
+     * Probes a table for a key without locking
+     * @param tab the table to search
+     * @param key the key being searched for
+     * @param hash the spread hash of key
+     * @return the index of key, -1 if the key is not in the table
+     */
+    private static int find(AtomicReferenceArray<Slot> tab, Object key,
+            int hash) {
+        int mask = tab.length() - 1;
+        int i = hash & mask;
+        for (int n = 0; n <= mask; n++) {
+            Slot s = tab.get(i);
+            if (s == null) { return -1; }
+            if (s != TOMBSTONE && s.hash == hash && key.equals(s.key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Builds a fresh table for a segment and publishes it in one write.
+     * Must be called with the segment locked.
+     * @param seg the segment being resized
+     * @param length the new table length, a power of two
+     */
+    private static void rehash(Segment seg, int length) {
+        AtomicReferenceArray<Slot> old = seg.table;
+        AtomicReferenceArray<Slot> tab = new AtomicReferenceArray<Slot>(length);
+        int mask = length - 1;
+        for (int j = 0; j < old.length(); j++) {
+            Slot s = old.get(j);
+            if (s != null && s != TOMBSTONE) {
+                int i = s.hash & mask;
+                while (tab.get(i) != null) { i = (i + 1) & mask; }
+                tab.lazySet(i, s);
+            }
+        }
+        seg.removed = 0;
+        seg.table = tab;
+    }
+
+    @Override
+    public V add(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        int hash = spread(key);
+        Segment seg = segmentFor(hash);
+        seg.lock();
+        try {
+            AtomicReferenceArray<Slot> tab = seg.table;
+            if ((seg.count + seg.removed + 1) / (double) tab.length()
+                    > MAX_LOAD_FACTOR) {
+                rehash(seg, (seg.count + 1) / (double) tab.length()
+                        > MAX_LOAD_FACTOR / 2
+                        ? tab.length() * 2 : tab.length());
+                tab = seg.table;
+            }
+            int mask = tab.length() - 1;
+            int i = hash & mask;
+            int tomb = -1;
+            Slot s;
+            while ((s = tab.get(i)) != null) {
+                if (s == TOMBSTONE) {
+                    if (tomb == -1) { tomb = i; }
+                } else if (s.hash == hash && key.equals(s.key)) {
+                    tab.set(i, new Slot(key, value, hash));
+                    return (V) s.value;
+                }
+                i = (i + 1) & mask;
+            }
+            if (tomb != -1) {
+                i = tomb;
+                seg.removed--;
+            }
+            tab.set(i, new Slot(key, value, hash));
+            seg.count++;
+            return null;
+        } finally {
+            seg.unlock();
+        }
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        int hash = spread(key);
+        Segment seg = segmentFor(hash);
+        seg.lock();
+        try {
+            AtomicReferenceArray<Slot> tab = seg.table;
+            int i = find(tab, key, hash);
+            if (i == -1) { return null; }
+            Slot s = tab.get(i);
+            tab.set(i, TOMBSTONE);
+            seg.count--;
+            seg.removed++;
+            return (V) s.value;
+        } finally {
+            seg.unlock();
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        int hash = spread(key);
+        AtomicReferenceArray<Slot> tab = segmentFor(hash).table;
+        int i = find(tab, key, hash);
+        if (i == -1) { return null; }
+        Slot s = tab.get(i);
+        if (s == TOMBSTONE || s.hash != hash || !key.equals(s.key)) {
+            // removed, and perhaps reused by another key, since find read it
+            return null;
+        }
+        return (V) s.value;
+    }
+
+    @Override
+    public boolean contains(K key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment seg : segments) { seg.lock(); }
+        try {
+            for (Segment seg : segments) {
+                seg.table = new AtomicReferenceArray<Slot>(startingLength());
+                seg.count = 0;
+                seg.removed = 0;
+            }
+        } finally {
+            for (Segment seg : segments) { seg.unlock(); }
+        }
+    }
+
+    @Override
+    public int size() {
+        int res = 0;
+        for (Segment seg : segments) { res += seg.count; }
+        return res;
+    }
+
+    /**
+     * Gives a snapshot of the live entries. Entries added or removed while
+     * the snapshot is being taken may or may not be included.
+     * @return a new array holding an entry for every key in the map
+     */
+    @Override
+    public MapEntry<K, V>[] toArray() {
+        List<MapEntry<K, V>> res = new ArrayList<MapEntry<K, V>>();
+        for (Segment seg : segments) {
+            AtomicReferenceArray<Slot> tab = seg.table;
+            for (int i = 0; i < tab.length(); i++) {
+                Slot s = tab.get(i);
+                if (s != null && s != TOMBSTONE) {
+                    res.add(new MapEntry<K, V>((K) s.key, (V) s.value));
+                }
+            }
+        }
+        return res.toArray(new MapEntry[res.size()]);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> res = new HashSet<K>();
+        for (Segment seg : segments) {
+            AtomicReferenceArray<Slot> tab = seg.table;
+            for (int i = 0; i < tab.length(); i++) {
+                Slot s = tab.get(i);
+                if (s != null && s != TOMBSTONE) { res.add((K) s.key); }
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public List<V> values() {
+        ArrayList<V> res = new ArrayList<V>();
+        for (Segment seg : segments) {
+            AtomicReferenceArray<Slot> tab = seg.table;
+            for (int i = 0; i < tab.length(); i++) {
+                Slot s = tab.get(i);
+                if (s != null && s != TOMBSTONE) { res.add((V) s.value); }
+            }
+        }
+        return res;
+    }
+}
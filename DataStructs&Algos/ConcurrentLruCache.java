@@ -0,0 +1,167 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread safe cache made of independently locked LruCache segments. Each
+ * key belongs to one segment, picked by its hash, and each segment holds
+ * an equal share of the entry and weight bounds. Threads working on
+ * different segments never contend, at the cost of eviction order only
+ * being least recently used within a segment.
+ */
+public class ConcurrentLruCache<K, V> {
+
+    private final LruCache<K, V>[] segments;
+
+    /**
+     * Creates a cache bounded only by entry count
+     * @param maxEntries the most entries the cache will hold
+     * @param concurrencyLevel the number of segments
+     */
+    public ConcurrentLruCache(int maxEntries, int concurrencyLevel) {
+        this(maxEntries, Long.MAX_VALUE, null, 0, TimeUnit.NANOSECONDS, false,
+                concurrencyLevel);
+    }
+
+    /**
+     * Creates a cache
+     * @param maxEntries the most entries the cache will hold
+     * @param maxWeight the most total weight the cache will hold
+     * @param weigher gives the weight of each entry; null weighs every
+     *                entry as 1
+     * @param ttl how long after being written an entry expires; 0 for never
+     * @param unit the unit of ttl
+     * @param frequencyAdmission true to only admit new keys that are
+     *                           requested more often than the eviction
+     *                           victim
+     * @param concurrencyLevel the number of segments
+     */
+    public ConcurrentLruCache(int maxEntries, long maxWeight,
+            LruCache.Weigher<? super K, ? super V> weigher, long ttl,
+            TimeUnit unit, boolean frequencyAdmission, int concurrencyLevel) {
+        if (concurrencyLevel < 1 || maxEntries < concurrencyLevel) {
+            throw new IllegalArgumentException();
+        }
+        segments = new LruCache[concurrencyLevel];
+        for (int i = 0; i < concurrencyLevel; i++) {
+            int entries = maxEntries / concurrencyLevel
+                    + (i < maxEntries % concurrencyLevel ? 1 : 0);
+            long w = maxWeight == Long.MAX_VALUE ? maxWeight
+                    : maxWeight / concurrencyLevel;
+            segments[i] = new LruCache<K, V>(entries, w, weigher, ttl, unit,
+                    frequencyAdmission);
+        }
+    }
+
+    /**
+     * @param key a key
+     * @return the segment that owns key
+     */
+    private LruCache<K, V> segmentFor(Object key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return segments[(h & 0x7fffffff) % segments.length];
+    }
+
+    /**
+     * Gets the value for a key and marks it most recently used
+     * @param key the key to look up
+     * @return the value, or null if key is not cached or has expired
+     */
+    public V get(K key) {
+        LruCache<K, V> seg = segmentFor(key);
+        synchronized (seg) {
+            return seg.get(key);
+        }
+    }
+
+    /**
+     * Adds or replaces the value for a key
+     * @param key the key
+     * @param value the value
+     * @return the previous value for key, null if there was none
+     */
+    public V put(K key, V value) {
+        LruCache<K, V> seg = segmentFor(key);
+        synchronized (seg) {
+            return seg.put(key, value);
+        }
+    }
+
+    /**
+     * Removes a key from the cache
+     * @param key the key to remove
+     * @return the removed value, null if key was not cached
+     */
+    public V remove(K key) {
+        LruCache<K, V> seg = segmentFor(key);
+        synchronized (seg) {
+            return seg.remove(key);
+        }
+    }
+
+    /**
+     * @param key the key to look up
+     * @return true if key is cached and not expired
+     */
+    public boolean contains(K key) {
+        LruCache<K, V> seg = segmentFor(key);
+        synchronized (seg) {
+            return seg.contains(key);
+        }
+    }
+
+    /**
+     * Removes every entry, one segment at a time
+     */
+    public void clear() {
+        for (LruCache<K, V> seg : segments) {
+            synchronized (seg) { seg.clear(); }
+        }
+    }
+
+    /**
+     * @return the number of entries held across all segments
+     */
+    public int size() {
+        int res = 0;
+        for (LruCache<K, V> seg : segments) {
+            synchronized (seg) { res += seg.size(); }
+        }
+        return res;
+    }
+
+    /**
+     * @return the number of gets that found a live entry
+     */
+    public long hitCount() {
+        long res = 0;
+        for (LruCache<K, V> seg : segments) {
+            synchronized (seg) { res += seg.hitCount(); }
+        }
+        return res;
+    }
+
+    /**
+     * @return the number of gets that found nothing or an expired entry
+     */
+    public long missCount() {
+        long res = 0;
+        for (LruCache<K, V> seg : segments) {
+            synchronized (seg) { res += seg.missCount(); }
+        }
+        return res;
+    }
+
+    /**
+     * @return the number of entries evicted to stay within bounds
+     */
+    public long evictionCount() {
+        long res = 0;
+        for (LruCache<K, V> seg : segments) {
+            synchronized (seg) { res += seg.evictionCount(); }
+        }
+        return res;
+    }
+}
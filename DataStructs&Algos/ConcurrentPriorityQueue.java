@@ -0,0 +1,163 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe relaxed priority queue built as a MultiQueue: several
+ * Heaps, each behind its own lock, with more heaps than threads. insert
+ * locks any uncontended heap. deleteMin samples two heaps and takes from
+ * whichever has the smaller minimum, so threads rarely fight over the
+ * same lock and throughput grows with the number of cores.
+ *
+ * The price is that deleteMin is not exact: it returns one of the
+ * smallest items in the queue, usually within a few places of the true
+ * minimum, rather than always the minimum itself. Every item inserted is
+ * still removed exactly once.
+ */
+public class ConcurrentPriorityQueue<T extends Comparable<? super T>>
+       implements PriorityQueueInterface<T> {
+
+    /**
+     * One locked heap and a copy of its minimum that other threads can
+     * read without taking the lock
+     */
+    private final class Lane {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private Heap<T> heap = new Heap<T>();
+        private volatile T top;
+    }
+
+    private final Lane[] lanes;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates an empty queue with two heaps per available processor
+     */
+    public ConcurrentPriorityQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an empty queue
+     * @param heaps the number of heaps, at least 2
+     */
+    public ConcurrentPriorityQueue(int heaps) {
+        if (heaps < 2) { throw new IllegalArgumentException(); }
+        lanes = new ConcurrentPriorityQueue.Lane[heaps];
+        for (int i = 0; i < heaps; i++) { lanes[i] = new Lane(); }
+    }
+
+    @Override
+    public void insert(T item) {
+        if (item == null) { throw new IllegalArgumentException(); }
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        Lane lane = lanes[rnd.nextInt(lanes.length)];
+        while (!lane.lock.tryLock()) {
+            lane = lanes[rnd.nextInt(lanes.length)];
+        }
+        try {
+            lane.heap.add(item);
+            lane.top = lane.heap.peek();
+            size.incrementAndGet();
+        } finally {
+            lane.lock.unlock();
+        }
+    }
+
+    /**
+     * Picks the lane with the smallest visible minimum among two random
+     * lanes, or among all lanes if both samples are empty
+     * @param rnd the random source of this thread
+     * @return a lane that looked non empty, null if every lane was empty
+     */
+    private Lane pick(ThreadLocalRandom rnd) {
+        Lane a = lanes[rnd.nextInt(lanes.length)];
+        Lane b = lanes[rnd.nextInt(lanes.length)];
+        T ta = a.top;
+        T tb = b.top;
+        if (ta != null && (tb == null || ta.compareTo(tb) <= 0)) { return a; }
+        if (tb != null) { return b; }
+        Lane best = null;
+        T min = null;
+        for (Lane lane : lanes) {
+            T t = lane.top;
+            if (t != null && (min == null || t.compareTo(min) < 0)) {
+                best = lane;
+                min = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gives the smallest minimum among the heaps at the time each heap is
+     * looked at. Under concurrent updates this is a best effort answer.
+     * @return the smallest visible item, null if the queue looked empty
+     */
+    @Override
+    public T findMin() {
+        T min = null;
+        for (Lane lane : lanes) {
+            T t = lane.top;
+            if (t != null && (min == null || t.compareTo(min) < 0)) {
+                min = t;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Removes one of the smallest items in the queue
+     * @return the removed item, null if the queue is empty
+     */
+    @Override
+    public T deleteMin() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        while (size.get() > 0) {
+            Lane lane = pick(rnd);
+            if (lane != null && lane.lock.tryLock()) {
+                try {
+                    T res = lane.heap.remove();
+                    if (res != null) {
+                        lane.top = lane.heap.peek();
+                        size.decrementAndGet();
+                        return res;
+                    }
+                } finally {
+                    lane.lock.unlock();
+                }
+            }
+            Thread.onSpinWait();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    /**
+     * @return the number of items in the queue
+     */
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void makeEmpty() {
+        for (Lane lane : lanes) { lane.lock.lock(); }
+        try {
+            int removed = 0;
+            for (Lane lane : lanes) {
+                removed += lane.heap.size();
+                lane.heap = new Heap<T>();
+                lane.top = null;
+            }
+            size.addAndGet(-removed);
+        } finally {
+            for (Lane lane : lanes) { lane.lock.unlock(); }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+
+/**
+ * Lock free skip list set that can be shared between threads. Each node
+ * holds one forward reference per level, and each reference carries a
+ * mark bit. remove first marks a node's references from the top level
+ * down, which logically deletes it; the node is then physically unlinked
+ * with compare and set, by the remover or by any thread that passes it.
+ * put links a node in at the bottom level first, which is the moment it
+ * joins the set, and then links the levels above. get and contains never
+ * write and never retry.
+ *
+ * Unlike SkipList, putting an item that is already present does nothing,
+ * so the list behaves like a set.
+ */
+public class ConcurrentSkipList<T extends Comparable<? super T>>
+    implements SkipListInterface<T> {
+
+    private static final int MAX_LEVEL = 31;
+
+    /**
+     * A node of the list, present on levels 0 through topLevel
+     */
+    private static final class Node<T> {
+
+        private final T data;
+        private final AtomicMarkableReference<Node<T>>[] next;
+        private final int topLevel;
+
+        /**
+         * Creates a node
+         * @param data the data held by the node, null for the head
+         * @param topLevel the highest level the node is on
+         */
+        Node(T data, int topLevel) {
+            this.data = data;
+            this.topLevel = topLevel;
+            next = new AtomicMarkableReference[topLevel + 1];
+            for (int i = 0; i <= topLevel; i++) {
+                next[i] = new AtomicMarkableReference<Node<T>>(null, false);
+            }
+        }
+    }
+
+    private final CoinFlipper coinFlipper;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Node<T> head = new Node<T>(null, MAX_LEVEL);
+
+    /**
+     * Creates an empty list whose levels are drawn from ThreadLocalRandom,
+     * so threads never contend on a shared source of randomness
+     */
+    public ConcurrentSkipList() {
+        coinFlipper = null;
+    }
+
+    /**
+     * Creates an empty list whose levels are drawn from a coin flipper.
+     * Flips are made while holding the flipper's lock, so this is meant
+     * for reproducible single threaded runs.
+     * @param coinFlipper the source of randomness
+     */
+    public ConcurrentSkipList(CoinFlipper coinFlipper) {
+        if (coinFlipper == null) { throw new IllegalArgumentException(); }
+        this.coinFlipper = coinFlipper;
+    }
+
+    /**
+     * @return the top level for a new node; level n has probability 2^-n
+     */
+    private int randomLevel() {
+        if (coinFlipper == null) {
+            return Integer.numberOfTrailingZeros(
+                    ThreadLocalRandom.current().nextInt() | (1 << MAX_LEVEL));
+        }
+        int level = 0;
+        synchronized (coinFlipper) {
+            while (level < MAX_LEVEL && coinFlipper.flipCoin()
+                    .equals(CoinFlipper.Coin.HEADS)) {
+                level++;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Finds the predecessor and successor of data on every level,
+     * unlinking any marked nodes on the way
+     * @param data the data being searched for
+     * @param preds filled with the last node before data on each level
+     * @param succs filled with the first node at or after data on each
+     *              level, null at the end of a level
+     * @return true if data is in the list
+     */
+    private boolean find(T data, Node<T>[] preds, Node<T>[] succs) {
+        boolean[] marked = {false};
+        retry:
+        while (true) {
+            Node<T> pred = head;
+            Node<T> curr = null;
+            for (int level = MAX_LEVEL; level >= 0; level--) {
+                curr = pred.next[level].getReference();
+                while (curr != null) {
+                    Node<T> succ = curr.next[level].get(marked);
+                    while (marked[0]) {
+                        if (!pred.next[level].compareAndSet(curr, succ,
+                                false, false)) {
+                            continue retry;
+                        }
+                        curr = succ;
+                        if (curr == null) { break; }
+                        succ = curr.next[level].get(marked);
+                    }
+                    if (curr != null && curr.data.compareTo(data) < 0) {
+                        pred = curr;
+                        curr = succ;
+                    } else {
+                        break;
+                    }
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return curr != null && curr.data.compareTo(data) == 0;
+        }
+    }
+
+    @Override
+    public void put(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        int topLevel = randomLevel();
+        Node<T>[] preds = new Node[MAX_LEVEL + 1];
+        Node<T>[] succs = new Node[MAX_LEVEL + 1];
+        while (true) {
+            if (find(data, preds, succs)) { return; }
+            Node<T> node = new Node<T>(data, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                node.next[level].set(succs[level], false);
+            }
+            if (!preds[0].next[0].compareAndSet(succs[0], node,
+                    false, false)) {
+                continue;
+            }
+            size.incrementAndGet();
+            for (int level = 1; level <= topLevel; level++) {
+                while (true) {
+                    Node<T> pred = preds[level];
+                    Node<T> succ = succs[level];
+                    Node<T> current = node.next[level].getReference();
+                    if (node.next[level].isMarked()) { return; }
+                    if (current != succ && !node.next[level]
+                            .compareAndSet(current, succ, false, false)) {
+                        return;
+                    }
+                    if (pred.next[level].compareAndSet(succ, node,
+                            false, false)) {
+                        break;
+                    }
+                    find(data, preds, succs);
+                }
+            }
+            return;
+        }
+    }
+
+    @Override
+    public T remove(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T>[] preds = new Node[MAX_LEVEL + 1];
+        Node<T>[] succs = new Node[MAX_LEVEL + 1];
+        if (!find(data, preds, succs)) { return null; }
+        Node<T> node = succs[0];
+        boolean[] marked = {false};
+        for (int level = node.topLevel; level >= 1; level--) {
+            Node<T> succ = node.next[level].get(marked);
+            while (!marked[0]) {
+                node.next[level].compareAndSet(succ, succ, false, true);
+                succ = node.next[level].get(marked);
+            }
+        }
+        Node<T> succ = node.next[0].get(marked);
+        while (true) {
+            boolean markedByMe = node.next[0].compareAndSet(succ, succ,
+                    false, true);
+            succ = node.next[0].get(marked);
+            if (markedByMe) {
+                find(data, preds, succs);
+                size.decrementAndGet();
+                return node.data;
+            } else if (marked[0]) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public T get(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        boolean[] marked = {false};
+        Node<T> pred = head;
+        Node<T> curr = null;
+        for (int level = MAX_LEVEL; level >= 0; level--) {
+            curr = pred.next[level].getReference();
+            while (curr != null) {
+                Node<T> succ = curr.next[level].get(marked);
+                while (marked[0]) {
+                    curr = succ;
+                    if (curr == null) { break; }
+                    succ = curr.next[level].get(marked);
+                }
+                if (curr != null && curr.data.compareTo(data) < 0) {
+                    pred = curr;
+                    curr = succ;
+                } else {
+                    break;
+                }
+            }
+        }
+        return curr != null && curr.data.compareTo(data) == 0
+                ? curr.data : null;
+    }
+
+    @Override
+    public boolean contains(T data) {
+        return get(data) != null;
+    }
+
+    @Override
+    public T first() {
+        Node<T> curr = head.next[0].getReference();
+        while (curr != null && curr.next[0].isMarked()) {
+            curr = curr.next[0].getReference();
+        }
+        return curr == null ? null : curr.data;
+    }
+
+    @Override
+    public T last() {
+        Node<T> pred = head;
+        for (int level = MAX_LEVEL; level >= 0; level--) {
+            Node<T> curr = pred.next[level].getReference();
+            while (curr != null) {
+                if (!curr.next[level].isMarked()) { pred = curr; }
+                curr = curr.next[level].getReference();
+            }
+        }
+        return pred.data;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Empties the list. Operations running at the same time may apply to
+     * either the old or the new list.
+     */
+    @Override
+    public void clear() {
+        head = new Node<T>(null, MAX_LEVEL);
+        size.set(0);
+    }
+
+    @Override
+    public Set<T> dataSet() {
+        Set<T> res = new HashSet<T>();
+        Node<T> curr = head.next[0].getReference();
+        while (curr != null) {
+            if (!curr.next[0].isMarked()) { res.add(curr.data); }
+            curr = curr.next[0].getReference();
+        }
+        return res;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Min heap where every node has d children instead of two. A wider node
+ * makes the tree log(d) times shorter, so add touches fewer levels, and
+ * the d children compared during remove sit next to each other in the
+ * array. Sifting is iterative and moves a hole rather than swapping, and
+ * the array is read directly without bounds checked accessors.
+ *
+ * The root is at index 0 and the children of index i are at
+ * d * i + 1 through d * i + d.
+ */
+public class DaryHeap<T extends Comparable<? super T>>
+       implements HeapInterface<T> {
+
+    private final int arity;
+    private T[] back;
+    private int size;
+
+    /**
+     * Creates an empty 4-ary heap
+     */
+    public DaryHeap() {
+        this(4);
+    }
+
+    /**
+     * Creates an empty heap
+     * @param arity the number of children per node, at least 2
+     */
+    public DaryHeap(int arity) {
+        if (arity < 2) { throw new IllegalArgumentException(); }
+        this.arity = arity;
+        back = (T[]) new Comparable[10];
+    }
+
+    /**
+     * Moves an item up from the given slot to its correct position
+     * @param hole the slot the item starts at
+     * @param item the item being placed
+     */
+    private void siftUp(int hole, T item) {
+        while (hole > 0) {
+            int parent = (hole - 1) / arity;
+            if (item.compareTo(back[parent]) >= 0) { break; }
+            back[hole] = back[parent];
+            hole = parent;
+        }
+        back[hole] = item;
+    }
+
+    /**
+     * Moves an item down from the given slot to its correct position
+     * @param hole the slot the item starts at
+     * @param item the item being placed
+     */
+    private void siftDown(int hole, T item) {
+        int child;
+        while ((child = arity * hole + 1) < size) {
+            int end = Math.min(child + arity, size);
+            int min = child;
+            for (int c = child + 1; c < end; c++) {
+                if (back[c].compareTo(back[min]) < 0) { min = c; }
+            }
+            if (back[min].compareTo(item) >= 0) { break; }
+            back[hole] = back[min];
+            hole = min;
+        }
+        back[hole] = item;
+    }
+
+    @Override
+    public void add(T item) {
+        if (item == null) { throw new IllegalArgumentException(); }
+        if (size == back.length) {
+            T[] temp = (T[]) new Comparable[back.length * 2];
+            System.arraycopy(back, 0, temp, 0, size);
+            back = temp;
+        }
+        siftUp(size++, item);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public T peek() {
+        return size == 0 ? null : back[0];
+    }
+
+    @Override
+    public T remove() {
+        if (size == 0) { return null; }
+        T res = back[0];
+        T last = back[--size];
+        back[size] = null;
+        if (size > 0) { siftDown(0, last); }
+        return res;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of children per node
+     */
+    public int arity() {
+        return arity;
+    }
+
+    /**
+     * Gives the backing array. Unlike Heap the root is at index 0.
+     * @return the backing array
+     */
+    @Override
+    public T[] toArray() {
+        return back;
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Min heap of double values stored in a flat double array. Laid out like
+ * Heap, with the root at index 1, but sifting moves a hole instead of
+ * swapping, and nothing is boxed or allocated except when the array doubles.
+ */
+public class DoubleHeap {
+
+    private double[] back;
+    private int size;
+
+    /**
+     * Creates an empty heap
+     */
+    public DoubleHeap() {
+        this(10);
+    }
+
+    /**
+     * Creates an empty heap
+     * @param capacity the number of values the heap can hold before
+     *                 its array has to grow
+     */
+    public DoubleHeap(int capacity) {
+        if (capacity < 0) { throw new IllegalArgumentException(); }
+        back = new double[capacity + 1];
+    }
+
+    /**
+     * Adds a value to the heap
+     * @param item the value to add, may not be NaN
+     */
+    public void add(double item) {
+        if (Double.isNaN(item)) { throw new IllegalArgumentException(); }
+        if (size + 1 == back.length) {
+            back = Arrays.copyOf(back, back.length * 2);
+        }
+        int hole = ++size;
+        while (hole > 1 && item < back[hole >>> 1]) {
+            back[hole] = back[hole >>> 1];
+            hole >>>= 1;
+        }
+        back[hole] = item;
+    }
+
+    /**
+     * @return true if the heap has no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the smallest value in the heap
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public double peek() {
+        if (size == 0) { throw new NoSuchElementException(); }
+        return back[1];
+    }
+
+    /**
+     * Removes the smallest value from the heap
+     * @return the value that was removed
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public double remove() {
+        if (size == 0) { throw new NoSuchElementException(); }
+        double res = back[1];
+        double item = back[size--];
+        int hole = 1;
+        int child;
+        while ((child = hole << 1) <= size) {
+            if (child < size && back[child + 1] < back[child]) { child++; }
+            if (back[child] >= item) { break; }
+            back[hole] = back[child];
+            hole = child;
+        }
+        back[hole] = item;
+        return res;
+    }
+
+    /**
+     * @return the number of values in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every value, keeping the array for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Gives a copy of the heap in level order. Like Heap, index 0 is unused
+     * and the root is at index 1.
+     * @return a new array of length size() + 1
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(back, size + 1);
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * Fibonacci heap: a lazily consolidated forest of heap ordered trees.
+ * insert and meld splice into the root list and decreaseKey cuts a node
+ * out to the root list, all in O(1) amortized time; deleteMin links trees
+ * of equal degree in O(log n) amortized time. The best asymptotic bounds
+ * for decreaseKey heavy workloads such as Prim's on dense graphs.
+ */
+public class FibonacciHeap<T extends Comparable<? super T>>
+       implements AddressablePriorityQueue<T> {
+
+    /**
+     * A tree node, kept in a circular doubly linked list with its siblings
+     */
+    private static final class Node<T> implements Handle<T> {
+
+        private T item;
+        private Node<T> parent;
+        private Node<T> child;
+        private Node<T> left = this;
+        private Node<T> right = this;
+        private int degree;
+        private boolean mark;
+        private boolean live = true;
+        private HandleOwner owner;
+
+        /**
+         * Creates a single node tree
+         * @param item the item held by the node
+         * @param owner the owner of the heap the node is pushed into
+         */
+        Node(T item, HandleOwner owner) {
+            this.item = item;
+            this.owner = owner;
+        }
+
+        /**
+         * @return the heap the node is in, null if that heap was emptied
+         */
+        Object heap() {
+            owner = owner.resolve();
+            return owner.heap();
+        }
+
+        @Override
+        public T getItem() { return item; }
+
+        @Override
+        public boolean isLive() { return live && heap() != null; }
+    }
+
+    private Node<T> min;
+    private int size;
+    private HandleOwner owner = new HandleOwner(this);
+
+    /**
+     * Splices two circular lists together
+     * @param a a node of one list, may be null
+     * @param b a node of another list, may be null
+     * @return a node of the combined list
+     */
+    private static <T> Node<T> splice(Node<T> a, Node<T> b) {
+        if (a == null) { return b; }
+        if (b == null) { return a; }
+        Node<T> aRight = a.right;
+        a.right = b.right;
+        a.right.left = a;
+        b.right = aRight;
+        b.right.left = b;
+        return a;
+    }
+
+    /**
+     * Unlinks a node from its sibling list, leaving it as a list of one
+     * @param n the node to unlink
+     */
+    private static <T> void unlink(Node<T> n) {
+        n.left.right = n.right;
+        n.right.left = n.left;
+        n.left = n;
+        n.right = n;
+    }
+
+    @Override
+    public Handle<T> push(T item) {
+        if (item == null) { throw new IllegalArgumentException(); }
+        Node<T> n = new Node<T>(item, owner);
+        min = splice(min, n);
+        if (n.item.compareTo(min.item) < 0) { min = n; }
+        size++;
+        return n;
+    }
+
+    @Override
+    public void insert(T item) {
+        push(item);
+    }
+
+    /**
+     * Moves every item of another heap into this one in O(1). The other
+     * heap is left empty, and handles from it now refer to items in this
+     * heap and can be passed to its decreaseKey.
+     * @param other the heap to take the items of
+     */
+    public void meld(FibonacciHeap<T> other) {
+        if (other == null || other == this) {
+            throw new IllegalArgumentException();
+        }
+        Node<T> otherMin = other.min;
+        min = splice(min, otherMin);
+        if (otherMin != null && otherMin.item.compareTo(min.item) < 0) {
+            min = otherMin;
+        }
+        size += other.size;
+        other.min = null;
+        other.size = 0;
+        other.owner.forwardTo(owner);
+        other.owner = new HandleOwner(other);
+    }
+
+    /**
+     * Moves a node from its parent's child list to the root list
+     * @param n the node to cut
+     */
+    private void cut(Node<T> n) {
+        Node<T> p = n.parent;
+        if (p.child == n) { p.child = n.right == n ? null : n.right; }
+        unlink(n);
+        p.degree--;
+        n.parent = null;
+        n.mark = false;
+        splice(min, n);
+    }
+
+    @Override
+    public void decreaseKey(Handle<T> handle, T item) {
+        if (!(handle instanceof Node) || item == null) {
+            throw new IllegalArgumentException();
+        }
+        Node<T> n = (Node<T>) handle;
+        if (!n.live || n.heap() != this || item.compareTo(n.item) > 0) {
+            throw new IllegalArgumentException();
+        }
+        n.item = item;
+        Node<T> p = n.parent;
+        if (p != null && n.item.compareTo(p.item) < 0) {
+            cut(n);
+            while (p.parent != null) {
+                if (!p.mark) {
+                    p.mark = true;
+                    break;
+                }
+                Node<T> next = p.parent;
+                cut(p);
+                p = next;
+            }
+        }
+        if (n.item.compareTo(min.item) < 0) { min = n; }
+    }
+
+    /**
+     * Links trees in the root list until no two roots have the same degree
+     * and finds the new minimum
+     */
+    private void consolidate() {
+        Node<T>[] byDegree = new Node[46];
+        Node<T> start = min;
+        int roots = 0;
+        Node<T> n = start;
+        do {
+            roots++;
+            n = n.right;
+        } while (n != start);
+        Node<T>[] list = new Node[roots];
+        for (int i = 0; i < roots; i++) {
+            list[i] = n;
+            n = n.right;
+        }
+        for (Node<T> x : list) {
+            unlink(x);
+            while (byDegree[x.degree] != null) {
+                Node<T> y = byDegree[x.degree];
+                byDegree[x.degree] = null;
+                if (y.item.compareTo(x.item) < 0) {
+                    Node<T> temp = x;
+                    x = y;
+                    y = temp;
+                }
+                y.parent = x;
+                y.mark = false;
+                x.child = splice(x.child, y);
+                x.degree++;
+            }
+            byDegree[x.degree] = x;
+        }
+        min = null;
+        for (Node<T> x : byDegree) {
+            if (x != null) {
+                min = splice(min, x);
+                if (x.item.compareTo(min.item) < 0) { min = x; }
+            }
+        }
+    }
+
+    @Override
+    public T findMin() {
+        return min == null ? null : min.item;
+    }
+
+    @Override
+    public T deleteMin() {
+        if (min == null) { return null; }
+        Node<T> old = min;
+        Node<T> c = old.child;
+        if (c != null) {
+            Node<T> n = c;
+            do {
+                n.parent = null;
+                n = n.right;
+            } while (n != c);
+        }
+        Node<T> rest = old.right == old ? null : old.right;
+        unlink(old);
+        old.child = null;
+        old.live = false;
+        min = splice(rest, c);
+        size--;
+        if (min != null) { consolidate(); }
+        return old.item;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every item in O(1). Handles to the removed items stop being
+     * live.
+     */
+    @Override
+    public void makeEmpty() {
+        min = null;
+        size = 0;
+        owner.retire();
+        owner = new HandleOwner(this);
+    }
+}
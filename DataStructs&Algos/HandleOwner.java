@@ -0,0 +1,59 @@
+/**
+ * Records which heap the nodes behind the handles of an
+ * AddressablePriorityQueue belong to. Every node points at the owner of
+ * the heap it was pushed into. Melding a heap into another forwards its
+ * owner to the other heap's owner, and emptying a heap retires its owner,
+ * so either one moves or kills every node of the heap in O(1) without
+ * walking them. Forwarding chains are shortened as they are followed.
+ */
+final class HandleOwner {
+
+    private Object heap;
+    private HandleOwner next;
+
+    /**
+     * Creates an owner
+     * @param heap the heap whose nodes will point at this owner
+     */
+    HandleOwner(Object heap) {
+        this.heap = heap;
+    }
+
+    /**
+     * Follows forwarding links to the owner that now stands for this one,
+     * halving the chain on the way
+     * @return the last owner in the chain
+     */
+    HandleOwner resolve() {
+        HandleOwner here = this;
+        while (here.next != null) {
+            if (here.next.next != null) { here.next = here.next.next; }
+            here = here.next;
+        }
+        return here;
+    }
+
+    /**
+     * @return the heap holding the nodes of this owner, null if the heap
+     * has been emptied since
+     */
+    Object heap() {
+        return resolve().heap;
+    }
+
+    /**
+     * Hands the nodes of this owner over to another
+     * @param other the owner of the heap the nodes were melded into
+     */
+    void forwardTo(HandleOwner other) {
+        heap = null;
+        next = other;
+    }
+
+    /**
+     * Marks every node of this owner as no longer in any heap
+     */
+    void retire() {
+        heap = null;
+    }
+}
@@ -1,13 +1,144 @@
 
-import java.util.HashSet;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
-public class HashMap<K, V> implements HashMapInterface<K, V> {
+public class HashMap<K, V> implements HashMapInterface<K, V>,
+       Iterable<MapEntry<K, V>> {
 
     private MapEntry<K, V>[] table;
     private int size;
+    private int modCount;
+
+    /**
+     * Iterates over the live entries of the table, skipping empty slots
+     * and tombstones. Fails fast if the map is structurally modified.
+     */
+    private class EntryIterator implements Iterator<MapEntry<K, V>> {
+
+        private final MapEntry<K, V>[] tab = table;
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        /**
+         * Finds the next live slot
+         * @param from the first index to look at
+         * @return the index of the next live entry, tab.length if none
+         */
+        private int advance(int from) {
+            while (from < tab.length
+                    && (tab[from] == null || tab[from].isRemoved())) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < tab.length;
+        }
+
+        @Override
+        public MapEntry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= tab.length) { throw new NoSuchElementException(); }
+            MapEntry<K, V> res = tab[next];
+            next = advance(next + 1);
+            return res;
+        }
+    }
+
+    /**
+     * Splits the table into index ranges so entries can be processed in
+     * parallel. Each range skips empty slots and tombstones.
+     */
+    private class TableSpliterator implements Spliterator<MapEntry<K, V>> {
+
+        private final MapEntry<K, V>[] tab;
+        private final int expectedModCount;
+        private int index;
+        private final int fence;
+        private int est;
+
+        /**
+         * Creates a spliterator over part of the table
+         * @param tab the table being split
+         * @param index the first index covered
+         * @param fence one past the last index covered
+         * @param est the estimated number of live entries in the range
+         * @param expectedModCount the modCount the table was captured at
+         */
+        TableSpliterator(MapEntry<K, V>[] tab, int index, int fence, int est,
+                int expectedModCount) {
+            this.tab = tab;
+            this.index = index;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super MapEntry<K, V>> action) {
+            if (action == null) { throw new NullPointerException(); }
+            while (index < fence) {
+                MapEntry<K, V> e = tab[index++];
+                if (e != null && !e.isRemoved()) {
+                    action.accept(e);
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(
+                Consumer<? super MapEntry<K, V>> action) {
+            if (action == null) { throw new NullPointerException(); }
+            for (; index < fence; index++) {
+                MapEntry<K, V> e = tab[index];
+                if (e != null && !e.isRemoved()) { action.accept(e); }
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public Spliterator<MapEntry<K, V>> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) { return null; }
+            est >>>= 1;
+            TableSpliterator res = new TableSpliterator(tab, index, mid, est,
+                    expectedModCount);
+            index = mid;
+            return res;
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return (index == 0 && fence == tab.length ? Spliterator.SIZED : 0)
+                    | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
 
     public HashMap() {
         size = 0;
@@ -19,6 +150,7 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
         if (key == null || value == null) {
             throw new IllegalArgumentException();
         }
+        modCount++;
         if (((size + 1) / (double) table.length) > MAX_LOAD_FACTOR) {
             MapEntry<K, V>[] temp = table;
             table = new MapEntry[temp.length * 2];
@@ -72,6 +204,7 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
             }
         }
         if (table[i] != null && !table[i].isRemoved()) {
+            modCount++;
             table[i].setRemoved(true);
             size--;
             return table[i].getValue();
@@ -108,6 +241,7 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
     public void clear() {
         table = new MapEntry[STARTING_SIZE];
         size = 0;
+        modCount++;
     }
 
     @Override
@@ -115,31 +249,122 @@ public class HashMap<K, V> implements HashMapInterface<K, V> {
         return size;
     }
 
+    /**
+     * Gives the raw backing table, including empty slots and tombstones.
+     * Use iterator or spliterator to visit only the live entries.
+     * @return the backing table
+     */
     @Override
     public MapEntry<K, V>[] toArray() {
         return table;
     }
 
+    /**
+     * Gives a live view of the keys. The view reads straight from the
+     * table, so nothing is copied and later changes to the map show
+     * through it.
+     * @return the keys of the map
+     */
     @Override
     public Set<K> keySet() {
-        HashSet<K> res = new HashSet();
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                final Iterator<MapEntry<K, V>> it = HashMap.this.iterator();
+                return new Iterator<K>() {
+                    @Override
+                    public boolean hasNext() { return it.hasNext(); }
+
+                    @Override
+                    public K next() { return it.next().getKey(); }
+                };
+            }
+
+            @Override
+            public int size() { return size; }
+
+            @Override
+            public boolean contains(Object o) {
+                return o != null && HashMap.this.contains((K) o);
+            }
+        };
+    }
+
+    /**
+     * Copies the values into a new list. Use valueView to iterate over the
+     * values without copying them.
+     * @return a new list of the values in table order
+     */
+    @Override
+    public List<V> values() {
+        ArrayList<V> res = new ArrayList<V>(size);
         for (int i = 0; i < table.length; i++) {
             if (table[i] != null && !table[i].isRemoved()) {
-                res.add(table[i].getKey());
+                res.add(table[i].getValue());
             }
         }
         return res;
     }
 
+    /**
+     * Gives a live view of the values. The view reads straight from the
+     * table, so nothing is copied and later changes to the map show
+     * through it.
+     * @return the values of the map
+     */
+    public Collection<V> valueView() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                final Iterator<MapEntry<K, V>> it = HashMap.this.iterator();
+                return new Iterator<V>() {
+                    @Override
+                    public boolean hasNext() { return it.hasNext(); }
+
+                    @Override
+                    public V next() { return it.next().getValue(); }
+                };
+            }
+
+            @Override
+            public int size() { return size; }
+        };
+    }
+
+    /**
+     * Iterates over the live entries of the table without copying them
+     * @return an iterator over every entry in the map
+     */
     @Override
-    public List<V> values() {
-        ArrayList<V> res = new ArrayList<V>();
+    public Iterator<MapEntry<K, V>> iterator() {
+        return new EntryIterator();
+    }
+
+    /**
+     * Passes every key/value pair in the map to an action
+     * @param action the action to run on each pair
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) { throw new IllegalArgumentException(); }
+        int expected = modCount;
         for (int i = 0; i < table.length; i++) {
             if (table[i] != null && !table[i].isRemoved()) {
-                res.add(table[i].getValue());
+                action.accept(table[i].getKey(), table[i].getValue());
             }
         }
-        return res;
+        if (modCount != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Splits the backing table by index range, skipping empty slots and
+     * tombstones, so entries can be streamed in parallel
+     * @return a spliterator over every entry in the map
+     */
+    @Override
+    public Spliterator<MapEntry<K, V>> spliterator() {
+        return new TableSpliterator(table, 0, table.length, size, modCount);
     }
 
 }
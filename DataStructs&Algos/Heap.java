@@ -1,3 +1,5 @@
+import java.util.Collection;
+
 public class Heap<T extends Comparable<? super T>> implements HeapInterface<T> {
 
     private T tempData;
@@ -9,18 +11,37 @@ public class Heap<T extends Comparable<? super T>> implements HeapInterface<T> {
     private class HeapArray {
 
         private int size, count;
-        private T[] back = (T[]) new Comparable[10];
+        private T[] back;
         private T[] temp;
 
         /**
          * Constructor for the private class HeapArray
+         * @param capacity the number of items the array can hold before
+         *                 it has to grow
          */
-        public HeapArray() {
-            size = 10;
+        public HeapArray(int capacity) {
+            size = capacity + 1;
+            back = (T[]) new Comparable[size];
             count = 1;
             back[0] = null;
         }
 
+        /**
+         * Grows the array once so that it can hold the given number of
+         * items without doubling repeatedly
+         * @param capacity the number of items the array must be able to hold
+         */
+        public void ensureCapacity(int capacity) {
+            if (capacity + 1 > size) {
+                temp = back;
+                size = capacity + 1;
+                back = (T[]) new Comparable[size];
+                for (int i = 1; i < count; i++) {
+                    back[i] = temp[i];
+                }
+            }
+        }
+
         /**
          * Used to get the left child of the index.
          * @param index the parent's index
@@ -177,7 +198,114 @@ public class Heap<T extends Comparable<? super T>> implements HeapInterface<T> {
         }
     }
 
-    private HeapArray hR = new HeapArray();
+    /**
+     * Rebuilds the heap property over the whole array bottom up, sifting
+     * down every parent starting from the last one. This is Floyd's
+     * heapify and runs in O(n), versus O(n log n) for adding one by one.
+     * @param hAr the HeapArray that is going to be heapified
+     */
+    private void heapify(HeapArray hAr) {
+        for (int i = (hAr.size() - 1) / 2; i >= 1; i--) {
+            downHeap(hAr, i);
+        }
+    }
+
+    private HeapArray hR;
+
+    /**
+     * Creates an empty heap
+     */
+    public Heap() {
+        this(10);
+    }
+
+    /**
+     * Creates an empty heap
+     * @param initialCapacity the number of items the heap can hold before
+     *                        its array has to grow, may be 0
+     */
+    public Heap(int initialCapacity) {
+        if (initialCapacity < 0) { throw new IllegalArgumentException(); }
+        hR = new HeapArray(initialCapacity);
+    }
+
+    /**
+     * Creates a heap holding the given items, built in O(n)
+     * @param items the items to add, none of which may be null
+     */
+    public Heap(Collection<? extends T> items) {
+        this(countOf(items));
+        addAll(items);
+    }
+
+    /**
+     * Creates a heap holding the given items, built in O(n)
+     * @param items the items to add, none of which may be null
+     */
+    public Heap(T[] items) {
+        this(countOf(items));
+        addAll(items);
+    }
+
+    /**
+     * Checks the items given to a constructor before they are sized
+     * @param items the items, may not be null
+     * @return the number of items
+     */
+    private static int countOf(Collection<?> items) {
+        if (items == null) { throw new IllegalArgumentException(); }
+        return items.size();
+    }
+
+    /**
+     * Checks the items given to a constructor before they are sized
+     * @param items the items, may not be null
+     * @return the number of items
+     */
+    private static int countOf(Object[] items) {
+        if (items == null) { throw new IllegalArgumentException(); }
+        return items.length;
+    }
+
+    /**
+     * Adds every item in a collection. When the batch is at least as big
+     * as the heap, the items are appended and the whole array is
+     * heapified in O(n + k); otherwise each item is sifted up on its own.
+     * @param items the items to add, none of which may be null
+     */
+    public void addAll(Collection<? extends T> items) {
+        if (items == null) { throw new IllegalArgumentException(); }
+        for (T item : items) {
+            if (item == null) { throw new IllegalArgumentException(); }
+        }
+        hR.ensureCapacity(size() + items.size());
+        boolean bulk = items.size() >= size();
+        for (T item : items) {
+            hR.append(item);
+            if (!bulk) { upHeap(hR, hR.size() - 1); }
+        }
+        if (bulk) { heapify(hR); }
+    }
+
+    /**
+     * Adds every item in an array. When the batch is at least as big as
+     * the heap, the items are appended and the whole array is heapified
+     * in O(n + k); otherwise each item is sifted up on its own.
+     * @param items the items to add, none of which may be null
+     */
+    public void addAll(T[] items) {
+        if (items == null) { throw new IllegalArgumentException(); }
+        for (T item : items) {
+            if (item == null) { throw new IllegalArgumentException(); }
+        }
+        hR.ensureCapacity(size() + items.length);
+        boolean bulk = items.length >= size();
+        for (T item : items) {
+            hR.append(item);
+            if (!bulk) { upHeap(hR, hR.size() - 1); }
+        }
+        if (bulk) { heapify(hR); }
+    }
 
     @Override
     public void add(T item) {
@@ -213,6 +341,24 @@ public class Heap<T extends Comparable<? super T>> implements HeapInterface<T> {
         return res;
     }
 
+    /**
+     * Replaces the smallest item with a new one in a single sift down,
+     * which is cheaper than a remove followed by an add
+     * @param item the item to put in the heap
+     * @return the smallest item before the call, null if the heap was empty
+     */
+    public T replaceTop(T item) {
+        if (item == null) { throw new IllegalArgumentException(); }
+        if (hR.size() == 1) {
+            add(item);
+            return null;
+        }
+        T res = hR.get(1);
+        hR.set(1, item);
+        downHeap(hR, 1);
+        return res;
+    }
+
     @Override
     public int size() {
         return hR.size() - 1;
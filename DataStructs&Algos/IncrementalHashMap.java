@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Linear probing hash map that spreads the cost of growing over many
+ * operations. When the table passes MAX_LOAD_FACTOR a new table is
+ * allocated, twice the size unless most of the load is tombstones, but
+ * the entries stay where they are; every later add and remove moves a
+ * bounded number of slots from the old table to the new one, and lookups
+ * consult both tables until the old one is drained. No single add ever
+ * pays for rehashing the whole map.
+ */
+public class IncrementalHashMap<K, V> implements HashMapInterface<K, V> {
+
+    /**
+     * The number of old table slots migrated by each add or remove
+     */
+    private static final int MIGRATION_STEP = 8;
+
+    private MapEntry<K, V>[] table;
+    private MapEntry<K, V>[] old;
+    private final MapEntry<K, V> moved;
+    private int migrateIndex;
+    private int used;
+    private int size;
+
+    public IncrementalHashMap() {
+        moved = new MapEntry<K, V>(null, null);
+        moved.setRemoved(true);
+        clear();
+    }
+
+    /**
+     * Finds the home slot of a key
+     * @param key the key being hashed
+     * @param length the length of the table
+     * @return the index the probe for key starts at
+     */
+    private static int indexFor(Object key, int length) {
+        return (key.hashCode() & 0x7fffffff) % length;
+    }
+
+    /**
+     * Finds the slot holding a live entry for key
+     * @param tab the table to search
+     * @param key the key being searched for
+     * @return the index of key, -1 if the key is not in tab
+     */
+    private static int find(MapEntry<?, ?>[] tab, Object key) {
+        int i = indexFor(key, tab.length);
+        for (int n = 0; n < tab.length && tab[i] != null; n++) {
+            if (!tab[i].isRemoved() && key.equals(tab[i].getKey())) {
+                return i;
+            }
+            if (++i == tab.length) { i = 0; }
+        }
+        return -1;
+    }
+
+    /**
+     * Places an entry whose key is known not to be in the current table
+     * into the first free slot of its probe sequence
+     * @param entry the entry to place
+     */
+    private void place(MapEntry<K, V> entry) {
+        int i = indexFor(entry.getKey(), table.length);
+        while (table[i] != null && !table[i].isRemoved()) {
+            if (++i == table.length) { i = 0; }
+        }
+        if (table[i] == null) { used++; }
+        table[i] = entry;
+    }
+
+    /**
+     * Moves up to the given number of slots out of the old table. Migrated
+     * slots are overwritten with a tombstone rather than cleared so probe
+     * sequences through them stay intact for keys not yet moved.
+     * @param slots the maximum number of old slots to visit
+     */
+    private void migrate(int slots) {
+        while (old != null && slots > 0) {
+            MapEntry<K, V> e = old[migrateIndex];
+            if (e != null && !e.isRemoved()) {
+                place(e);
+                old[migrateIndex] = moved;
+            }
+            migrateIndex++;
+            slots--;
+            if (migrateIndex == old.length) { old = null; }
+        }
+    }
+
+    /**
+     * @return true if an old table is still being drained
+     */
+    public boolean isResizing() {
+        return old != null;
+    }
+
+    @Override
+    public V add(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        migrate(MIGRATION_STEP);
+        if (old != null) {
+            int j = find(old, key);
+            if (j != -1) {
+                V res = old[j].getValue();
+                old[j] = new MapEntry<K, V>(key, value);
+                return res;
+            }
+        }
+        int i = find(table, key);
+        if (i != -1) {
+            V res = table[i].getValue();
+            table[i] = new MapEntry<K, V>(key, value);
+            return res;
+        }
+        if (((used + 1) / (double) table.length) > MAX_LOAD_FACTOR) {
+            migrate(Integer.MAX_VALUE);
+            old = table;
+            // used counts tombstones too; if most of it is tombstones,
+            // migrate into a table of the same length to drop them
+            table = new MapEntry[(size + 1) / (double) old.length
+                    > MAX_LOAD_FACTOR / 2 ? old.length * 2 : old.length];
+            migrateIndex = 0;
+            used = 0;
+        }
+        place(new MapEntry<K, V>(key, value));
+        size++;
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        migrate(MIGRATION_STEP);
+        int i = find(table, key);
+        if (i != -1) {
+            table[i].setRemoved(true);
+            size--;
+            return table[i].getValue();
+        }
+        if (old != null) {
+            i = find(old, key);
+            if (i != -1) {
+                V res = old[i].getValue();
+                old[i] = moved;
+                size--;
+                return res;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        int i = find(table, key);
+        if (i != -1) { return table[i].getValue(); }
+        if (old != null) {
+            i = find(old, key);
+            if (i != -1) { return old[i].getValue(); }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean contains(K key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public void clear() {
+        table = new MapEntry[STARTING_SIZE];
+        old = null;
+        migrateIndex = 0;
+        used = 0;
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gives the backing table. Any migration still in progress is finished
+     * first so that the table holds every entry.
+     * @return the backing table
+     */
+    @Override
+    public MapEntry<K, V>[] toArray() {
+        migrate(Integer.MAX_VALUE);
+        return table;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> res = new HashSet<K>();
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null && !table[i].isRemoved()) {
+                res.add(table[i].getKey());
+            }
+        }
+        if (old != null) {
+            for (int i = migrateIndex; i < old.length; i++) {
+                if (old[i] != null && !old[i].isRemoved()) {
+                    res.add(old[i].getKey());
+                }
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public List<V> values() {
+        ArrayList<V> res = new ArrayList<V>(size);
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null && !table[i].isRemoved()) {
+                res.add(table[i].getValue());
+            }
+        }
+        if (old != null) {
+            for (int i = migrateIndex; i < old.length; i++) {
+                if (old[i] != null && !old[i].isRemoved()) {
+                    res.add(old[i].getValue());
+                }
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,240 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Min priority queue over a fixed range of integer handles, 0 through
+ * capacity - 1, each associated with at most one key. A position map from
+ * handle to heap slot lets the key of any handle be found, changed or
+ * removed in O(log n) without searching the heap, which is what graph
+ * algorithms such as Prim's and Dijkstra's need to update a vertex in
+ * place instead of pushing a duplicate.
+ */
+public class IndexedPriorityQueue<T extends Comparable<? super T>> {
+
+    private final int[] heap;
+    private final int[] pos;
+    private final T[] keys;
+    private int size;
+
+    /**
+     * Creates an empty queue
+     * @param capacity the number of handles, which are 0 to capacity - 1
+     */
+    public IndexedPriorityQueue(int capacity) {
+        if (capacity < 0) { throw new IllegalArgumentException(); }
+        heap = new int[capacity + 1];
+        pos = new int[capacity];
+        keys = (T[]) new Comparable[capacity];
+        for (int i = 0; i < capacity; i++) { pos[i] = -1; }
+    }
+
+    /**
+     * @param index a handle
+     * @throws IndexOutOfBoundsException if index is not a valid handle
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pos.length) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * @param index a handle that is in the queue
+     * @throws NoSuchElementException if index is not in the queue
+     */
+    private void checkContains(int index) {
+        if (!contains(index)) { throw new NoSuchElementException(); }
+    }
+
+    /**
+     * Moves the handle in a slot up to its correct position
+     * @param slot the heap slot to start at
+     */
+    private void siftUp(int slot) {
+        int index = heap[slot];
+        T key = keys[index];
+        while (slot > 1 && key.compareTo(keys[heap[slot >>> 1]]) < 0) {
+            heap[slot] = heap[slot >>> 1];
+            pos[heap[slot]] = slot;
+            slot >>>= 1;
+        }
+        heap[slot] = index;
+        pos[index] = slot;
+    }
+
+    /**
+     * Moves the handle in a slot down to its correct position
+     * @param slot the heap slot to start at
+     */
+    private void siftDown(int slot) {
+        int index = heap[slot];
+        T key = keys[index];
+        int child;
+        while ((child = slot << 1) <= size) {
+            if (child < size
+                    && keys[heap[child + 1]].compareTo(keys[heap[child]]) < 0) {
+                child++;
+            }
+            if (keys[heap[child]].compareTo(key) >= 0) { break; }
+            heap[slot] = heap[child];
+            pos[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = index;
+        pos[index] = slot;
+    }
+
+    /**
+     * Adds a handle with the given key
+     * @param index the handle
+     * @param key the key of the handle
+     * @throws IllegalArgumentException if key is null or index is already
+     * in the queue
+     */
+    public void insert(int index, T key) {
+        checkIndex(index);
+        if (key == null || contains(index)) {
+            throw new IllegalArgumentException();
+        }
+        keys[index] = key;
+        heap[++size] = index;
+        pos[index] = size;
+        siftUp(size);
+    }
+
+    /**
+     * @param index a handle
+     * @return true if the handle is in the queue
+     */
+    public boolean contains(int index) {
+        checkIndex(index);
+        return pos[index] != -1;
+    }
+
+    /**
+     * @param index a handle in the queue
+     * @return the key of the handle
+     */
+    public T keyOf(int index) {
+        checkIndex(index);
+        checkContains(index);
+        return keys[index];
+    }
+
+    /**
+     * Lowers the key of a handle
+     * @param index a handle in the queue
+     * @param key the new key, no greater than the current one
+     */
+    public void decreaseKey(int index, T key) {
+        checkIndex(index);
+        checkContains(index);
+        if (key == null || key.compareTo(keys[index]) > 0) {
+            throw new IllegalArgumentException();
+        }
+        keys[index] = key;
+        siftUp(pos[index]);
+    }
+
+    /**
+     * Raises the key of a handle
+     * @param index a handle in the queue
+     * @param key the new key, no less than the current one
+     */
+    public void increaseKey(int index, T key) {
+        checkIndex(index);
+        checkContains(index);
+        if (key == null || key.compareTo(keys[index]) < 0) {
+            throw new IllegalArgumentException();
+        }
+        keys[index] = key;
+        siftDown(pos[index]);
+    }
+
+    /**
+     * Changes the key of a handle in either direction
+     * @param index a handle in the queue
+     * @param key the new key
+     */
+    public void changeKey(int index, T key) {
+        checkIndex(index);
+        checkContains(index);
+        if (key == null) { throw new IllegalArgumentException(); }
+        keys[index] = key;
+        siftUp(pos[index]);
+        siftDown(pos[index]);
+    }
+
+    /**
+     * Removes a handle from the queue
+     * @param index a handle in the queue
+     * @return the key the handle had
+     */
+    public T remove(int index) {
+        checkIndex(index);
+        checkContains(index);
+        T res = keys[index];
+        int slot = pos[index];
+        heap[slot] = heap[size--];
+        pos[heap[slot]] = slot;
+        pos[index] = -1;
+        keys[index] = null;
+        if (slot <= size) {
+            int moved = heap[slot];
+            siftUp(slot);
+            siftDown(pos[moved]);
+        }
+        return res;
+    }
+
+    /**
+     * @return the smallest key, null if the queue is empty
+     */
+    public T findMin() {
+        return size == 0 ? null : keys[heap[1]];
+    }
+
+    /**
+     * @return the handle with the smallest key
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int minIndex() {
+        if (size == 0) { throw new NoSuchElementException(); }
+        return heap[1];
+    }
+
+    /**
+     * Removes the handle with the smallest key
+     * @return the handle that was removed
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int deleteMin() {
+        int res = minIndex();
+        remove(res);
+        return res;
+    }
+
+    /**
+     * @return true if no handles are in the queue
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of handles in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every handle
+     */
+    public void makeEmpty() {
+        for (int i = 1; i <= size; i++) {
+            pos[heap[i]] = -1;
+            keys[heap[i]] = null;
+        }
+        size = 0;
+    }
+}
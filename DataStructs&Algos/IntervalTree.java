@@ -0,0 +1,280 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set of closed intervals kept in an AVL tree ordered by low endpoint,
+ * then by high endpoint. Every node also records the largest high
+ * endpoint in its subtree, fixed up on the way back from every insertion
+ * and removal and by each rotation. A search for intervals overlapping a
+ * point or range skips any subtree whose largest high endpoint falls
+ * before it, and everything to the right of a node whose low endpoint
+ * falls after it, so reporting k overlaps costs O(k log n) at worst
+ * rather than a scan of every interval.
+ */
+public class IntervalTree<T extends Comparable<? super T>> {
+
+    /**
+     * A closed interval [low, high]
+     */
+    public static final class Interval<T extends Comparable<? super T>>
+        implements Comparable<Interval<T>> {
+
+        private final T low;
+        private final T high;
+
+        /**
+         * Creates an interval
+         * @param low the low endpoint
+         * @param high the high endpoint, not less than low
+         */
+        public Interval(T low, T high) {
+            if (low == null || high == null || low.compareTo(high) > 0) {
+                throw new IllegalArgumentException();
+            }
+            this.low = low;
+            this.high = high;
+        }
+
+        /**
+         * @return the low endpoint
+         */
+        public T getLow() { return low; }
+
+        /**
+         * @return the high endpoint
+         */
+        public T getHigh() { return high; }
+
+        /**
+         * @param from the low end of a closed range
+         * @param to the high end of a closed range
+         * @return true if this interval shares at least one point with the
+         * range
+         */
+        public boolean overlaps(T from, T to) {
+            return low.compareTo(to) <= 0 && from.compareTo(high) <= 0;
+        }
+
+        @Override
+        public int compareTo(Interval<T> other) {
+            int cmp = low.compareTo(other.low);
+            return cmp != 0 ? cmp : high.compareTo(other.high);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Interval)) { return false; }
+            Interval<?> that = (Interval<?>) other;
+            return low.equals(that.low) && high.equals(that.high);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * low.hashCode() + high.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "[" + low + ", " + high + "]";
+        }
+    }
+
+    /**
+     * A node that also records the largest high endpoint in its subtree
+     */
+    private static final class MaxNode<T extends Comparable<? super T>>
+        extends Node<Interval<T>> {
+
+        private T max;
+
+        /**
+         * Creates a leaf
+         * @param interval the interval held by the node
+         */
+        MaxNode(Interval<T> interval) {
+            super(interval);
+            setHeight(0);
+            max = interval.high;
+        }
+    }
+
+    /**
+     * Recalculates the largest high endpoint of a node from its children
+     */
+    private final AVLBalance.Augment<Interval<T>> maxes =
+            new AVLBalance.Augment<Interval<T>>() {
+        @Override
+        public void update(Node<Interval<T>> aNode) {
+            T max = aNode.getData().high;
+            Node<Interval<T>> left = aNode.getLeft();
+            Node<Interval<T>> right = aNode.getRight();
+            if (left != null && maxOf(left).compareTo(max) > 0) {
+                max = maxOf(left);
+            }
+            if (right != null && maxOf(right).compareTo(max) > 0) {
+                max = maxOf(right);
+            }
+            ((MaxNode<T>) aNode).max = max;
+        }
+    };
+
+    private Node<Interval<T>> root;
+    private int size;
+
+    /**
+     * @param aNode a node
+     * @return the largest high endpoint in the subtree at aNode
+     */
+    private T maxOf(Node<Interval<T>> aNode) {
+        return ((MaxNode<T>) aNode).max;
+    }
+
+    /**
+     * Recursive method used to add to the tree
+     * @param here the current node
+     * @param interval the interval to add
+     * @return the new parent of the subtree
+     */
+    private Node<Interval<T>> add(Node<Interval<T>> here,
+            Interval<T> interval) {
+        if (here == null) {
+            size++;
+            return new MaxNode<T>(interval);
+        }
+        int cmp = interval.compareTo(here.getData());
+        if (cmp < 0) {
+            here.setLeft(add(here.getLeft(), interval));
+        } else if (cmp > 0) {
+            here.setRight(add(here.getRight(), interval));
+        } else {
+            return here;
+        }
+        return AVLBalance.balance(here, maxes);
+    }
+
+    /**
+     * Recursive method used to remove from the tree
+     * @param here the current node
+     * @param interval the interval to remove
+     * @return the new parent of the subtree
+     */
+    private Node<Interval<T>> remove(Node<Interval<T>> here,
+            Interval<T> interval) {
+        if (here == null) { return null; }
+        int cmp = interval.compareTo(here.getData());
+        if (cmp < 0) {
+            here.setLeft(remove(here.getLeft(), interval));
+        } else if (cmp > 0) {
+            here.setRight(remove(here.getRight(), interval));
+        } else {
+            if (here.getLeft() == null || here.getRight() == null) {
+                size--;
+                return here.getLeft() == null ? here.getRight()
+                        : here.getLeft();
+            }
+            Node<Interval<T>> successor = here.getRight();
+            while (successor.getLeft() != null) {
+                successor = successor.getLeft();
+            }
+            here.setData(successor.getData());
+            here.setRight(remove(here.getRight(), successor.getData()));
+        }
+        return AVLBalance.balance(here, maxes);
+    }
+
+    /**
+     * Adds the interval [low, high]
+     * @param low the low endpoint
+     * @param high the high endpoint, not less than low
+     */
+    public void add(T low, T high) {
+        root = add(root, new Interval<T>(low, high));
+    }
+
+    /**
+     * Removes the interval [low, high]
+     * @param low the low endpoint
+     * @param high the high endpoint
+     * @return true if the interval was in the tree
+     */
+    public boolean remove(T low, T high) {
+        int before = size;
+        root = remove(root, new Interval<T>(low, high));
+        return size != before;
+    }
+
+    /**
+     * @param low the low endpoint
+     * @param high the high endpoint
+     * @return true if the interval [low, high] is in the tree
+     */
+    public boolean contains(T low, T high) {
+        Interval<T> interval = new Interval<T>(low, high);
+        Node<Interval<T>> temp = root;
+        while (temp != null) {
+            int cmp = interval.compareTo(temp.getData());
+            if (cmp == 0) { return true; }
+            temp = cmp > 0 ? temp.getRight() : temp.getLeft();
+        }
+        return false;
+    }
+
+    /**
+     * Finds every interval containing a point
+     * @param point the point
+     * @return a new list of the intervals containing point, ordered by low
+     * endpoint
+     */
+    public List<Interval<T>> stab(T point) {
+        return overlapping(point, point);
+    }
+
+    /**
+     * Finds every interval that shares a point with a closed range
+     * @param from the low end of the range
+     * @param to the high end of the range
+     * @return a new list of the overlapping intervals, ordered by low
+     * endpoint
+     */
+    public List<Interval<T>> overlapping(T from, T to) {
+        if (from == null || to == null || from.compareTo(to) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return overlapping(root, from, to, new ArrayList<Interval<T>>());
+    }
+
+    /**
+     * Recursive method used to collect overlapping intervals in order
+     * @param here the current node
+     * @param from the low end of the range
+     * @param to the high end of the range
+     * @param data the list that is being appended to
+     * @return the new list after being added to
+     */
+    private List<Interval<T>> overlapping(Node<Interval<T>> here, T from,
+            T to, List<Interval<T>> data) {
+        if (here == null || maxOf(here).compareTo(from) < 0) { return data; }
+        overlapping(here.getLeft(), from, to, data);
+        if (here.getData().low.compareTo(to) > 0) { return data; }
+        if (here.getData().overlaps(from, to)) { data.add(here.getData()); }
+        return overlapping(here.getRight(), from, to, data);
+    }
+
+    /**
+     * @return true if the tree is empty
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * @return the number of intervals in the tree
+     */
+    public int size() { return size; }
+
+    /**
+     * Removes every interval
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Min heap of long keys, each carrying an int payload, stored in two
+ * parallel flat arrays. Useful for scheduling by deadline where the
+ * payload is a task id. Laid out like Heap, with the root at index 1,
+ * and nothing is boxed or allocated except when the arrays double.
+ */
+public class LongIntHeap {
+
+    private long[] keys;
+    private int[] payloads;
+    private int size;
+
+    /**
+     * Creates an empty heap
+     */
+    public LongIntHeap() {
+        this(10);
+    }
+
+    /**
+     * Creates an empty heap
+     * @param capacity the number of entries the heap can hold before
+     *                 its arrays have to grow
+     */
+    public LongIntHeap(int capacity) {
+        if (capacity < 0) { throw new IllegalArgumentException(); }
+        keys = new long[capacity + 1];
+        payloads = new int[capacity + 1];
+    }
+
+    /**
+     * Adds an entry to the heap
+     * @param key the key the entry is ordered by
+     * @param payload the value carried with the key
+     */
+    public void add(long key, int payload) {
+        if (size + 1 == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            payloads = Arrays.copyOf(payloads, payloads.length * 2);
+        }
+        int hole = ++size;
+        while (hole > 1 && key < keys[hole >>> 1]) {
+            keys[hole] = keys[hole >>> 1];
+            payloads[hole] = payloads[hole >>> 1];
+            hole >>>= 1;
+        }
+        keys[hole] = key;
+        payloads[hole] = payload;
+    }
+
+    /**
+     * Moves an entry down from the given slot to its correct position
+     * @param hole the slot the entry is placed at
+     * @param key the key of the entry
+     * @param payload the payload of the entry
+     */
+    private void siftDown(int hole, long key, int payload) {
+        int child;
+        while ((child = hole << 1) <= size) {
+            if (child < size && keys[child + 1] < keys[child]) { child++; }
+            if (keys[child] >= key) { break; }
+            keys[hole] = keys[child];
+            payloads[hole] = payloads[child];
+            hole = child;
+        }
+        keys[hole] = key;
+        payloads[hole] = payload;
+    }
+
+    /**
+     * @return true if the heap has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the smallest key in the heap
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public long peekKey() {
+        if (size == 0) { throw new NoSuchElementException(); }
+        return keys[1];
+    }
+
+    /**
+     * @return the payload of the entry with the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peekPayload() {
+        if (size == 0) { throw new NoSuchElementException(); }
+        return payloads[1];
+    }
+
+    /**
+     * Removes the entry with the smallest key
+     * @return the payload of the entry that was removed
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int remove() {
+        if (size == 0) { throw new NoSuchElementException(); }
+        int res = payloads[1];
+        long key = keys[size];
+        int payload = payloads[size];
+        size--;
+        siftDown(1, key, payload);
+        return res;
+    }
+
+    /**
+     * Replaces the entry with the smallest key in a single sift down,
+     * which is cheaper than a remove followed by an add
+     * @param key the key of the new entry
+     * @param payload the payload of the new entry
+     * @return the payload of the entry that was replaced
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int replaceTop(long key, int payload) {
+        if (size == 0) { throw new NoSuchElementException(); }
+        int res = payloads[1];
+        siftDown(1, key, payload);
+        return res;
+    }
+
+    /**
+     * @return the number of entries in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry, keeping the arrays for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Gives a copy of the keys in level order. Like Heap, index 0 is unused
+     * and the root is at index 1.
+     * @return a new array of length size() + 1
+     */
+    public long[] keysToArray() {
+        return Arrays.copyOf(keys, size + 1);
+    }
+
+    /**
+     * Gives a copy of the payloads in the same order as keysToArray
+     * @return a new array of length size() + 1
+     */
+    public int[] payloadsToArray() {
+        return Arrays.copyOf(payloads, size + 1);
+    }
+}
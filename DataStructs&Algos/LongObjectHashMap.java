@@ -0,0 +1,207 @@
+/**
+ * Open addressing hash map from long keys to object values. Uses the same
+ * linear probing and tombstone scheme as HashMap, but keeps keys, values
+ * and slot states in parallel arrays so that no key is boxed and no entry
+ * object is allocated per insert.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    private long[] keys;
+    private V[] vals;
+    private byte[] states;
+    private int size;
+    private int removed;
+
+    /**
+     * Creates an empty map
+     */
+    public LongObjectHashMap() {
+        clear();
+    }
+
+    /**
+     * Finds the home slot of a key
+     * @param key the key being hashed
+     * @param length the length of the table
+     * @return the index the probe for key starts at
+     */
+    private static int indexFor(long key, int length) {
+        int h = (int) (key ^ (key >>> 32));
+        return ((h ^ (h >>> 16)) & 0x7fffffff) % length;
+    }
+
+    /**
+     * Finds the slot holding key
+     * @param key the key being searched for
+     * @return the index of key, -1 if the key is not in the map
+     */
+    private int find(long key) {
+        int i = indexFor(key, keys.length);
+        for (int n = 0; n < keys.length && states[i] != EMPTY; n++) {
+            if (states[i] == FULL && keys[i] == key) { return i; }
+            if (++i == keys.length) { i = 0; }
+        }
+        return -1;
+    }
+
+    /**
+     * Rebuilds the table with the given length, dropping tombstones
+     * @param length the new table length
+     */
+    private void rehash(int length) {
+        long[] oldKeys = keys;
+        V[] oldVals = vals;
+        byte[] oldStates = states;
+        keys = new long[length];
+        vals = (V[]) new Object[length];
+        states = new byte[length];
+        removed = 0;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldStates[j] == FULL) {
+                int i = indexFor(oldKeys[j], length);
+                while (states[i] != EMPTY) {
+                    if (++i == length) { i = 0; }
+                }
+                keys[i] = oldKeys[j];
+                vals[i] = oldVals[j];
+                states[i] = FULL;
+            }
+        }
+    }
+
+    /**
+     * Adds a key/value pair, replacing the value if the key is present
+     * @param key the key
+     * @param value the value, may not be null
+     * @return the old value, or null if key was not present
+     */
+    public V add(long key, V value) {
+        if (value == null) { throw new IllegalArgumentException(); }
+        if (((size + removed + 1) / (double) keys.length)
+                > HashMapInterface.MAX_LOAD_FACTOR) {
+            rehash((size + 1) / (double) keys.length
+                    > HashMapInterface.MAX_LOAD_FACTOR / 2
+                    ? keys.length * 2 + 1 : keys.length);
+        }
+        int i = indexFor(key, keys.length);
+        int tomb = -1;
+        while (states[i] != EMPTY) {
+            if (states[i] == FULL && keys[i] == key) {
+                V old = vals[i];
+                vals[i] = value;
+                return old;
+            }
+            if (states[i] == REMOVED && tomb == -1) { tomb = i; }
+            if (++i == keys.length) { i = 0; }
+        }
+        if (tomb != -1) {
+            i = tomb;
+            removed--;
+        }
+        keys[i] = key;
+        vals[i] = value;
+        states[i] = FULL;
+        size++;
+        return null;
+    }
+
+    /**
+     * Adds every key/value pair in the parallel arrays, growing the table
+     * once up front instead of on every doubling
+     * @param keys the keys to add
+     * @param values the values to add, values[i] goes with keys[i]
+     */
+    public void putAll(long[] keys, V[] values) {
+        if (keys == null || values == null || keys.length != values.length) {
+            throw new IllegalArgumentException();
+        }
+        int needed = (int) ((size + keys.length)
+                / HashMapInterface.MAX_LOAD_FACTOR) + 1;
+        if (needed > this.keys.length) { rehash(needed); }
+        for (int i = 0; i < keys.length; i++) {
+            add(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * Removes a key from the map
+     * @param key the key to remove
+     * @return the removed value, or null if key was not present
+     */
+    public V remove(long key) {
+        int i = find(key);
+        if (i == -1) { return null; }
+        V res = vals[i];
+        vals[i] = null;
+        states[i] = REMOVED;
+        size--;
+        removed++;
+        return res;
+    }
+
+    /**
+     * Gets the value mapped to a key
+     * @param key the key to look up
+     * @return the value, or null if key is not present
+     */
+    public V get(long key) {
+        int i = find(key);
+        return i == -1 ? null : vals[i];
+    }
+
+    /**
+     * Checks whether the map contains a key
+     * @param key the key to look up
+     * @return true if key is in the map
+     */
+    public boolean contains(long key) {
+        return find(key) != -1;
+    }
+
+    /**
+     * Removes every entry and shrinks the table back to its starting size
+     */
+    public void clear() {
+        keys = new long[HashMapInterface.STARTING_SIZE];
+        vals = (V[]) new Object[HashMapInterface.STARTING_SIZE];
+        states = new byte[HashMapInterface.STARTING_SIZE];
+        size = 0;
+        removed = 0;
+    }
+
+    /**
+     * @return the number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a new array of every key in the map, in table order
+     */
+    public long[] keys() {
+        long[] res = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] == FULL) { res[n++] = keys[i]; }
+        }
+        return res;
+    }
+
+    /**
+     * @return a new array of every value in the map, in the same order
+     * as keys()
+     */
+    public Object[] values() {
+        Object[] res = new Object[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (states[i] == FULL) { res[n++] = vals[i]; }
+        }
+        return res;
+    }
+}
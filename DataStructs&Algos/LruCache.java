@@ -0,0 +1,366 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache with least recently used eviction. Entries are found
+ * through a RobinHoodHashMap and threaded on an intrusive doubly linked
+ * recency list, so get and put are O(1) and eviction just unlinks the
+ * tail. The cache can be bounded by entry count, by total weight, or
+ * both, and entries can expire a fixed time after they were written.
+ *
+ * With frequency admission enabled, a new key that would force an
+ * eviction is only admitted if it has been requested more often than the
+ * entry it would evict, as tracked by a small count-min sketch (the
+ * TinyLFU policy). This keeps one-off scans from flushing hot entries.
+ *
+ * Not thread safe; see ConcurrentLruCache.
+ */
+public class LruCache<K, V> {
+
+    /**
+     * Gives the weight of an entry
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    public interface Weigher<K, V> {
+
+        /**
+         * @param key the key of the entry
+         * @param value the value of the entry
+         * @return the weight of the entry, at least 0
+         */
+        long weigh(K key, V value);
+    }
+
+    /**
+     * A cache entry, linked into the recency list
+     */
+    private static final class Entry<K, V> {
+
+        private final K key;
+        private V value;
+        private long weight;
+        private long writeTime;
+        private Entry<K, V> previous;
+        private Entry<K, V> next;
+
+        /**
+         * Creates an unlinked entry
+         * @param key the key
+         */
+        Entry(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Count-min sketch of how often keys have been requested. Counters are
+     * halved every time the number of recorded requests reaches ten times
+     * the width, so old popularity fades.
+     */
+    private static final class FrequencySketch {
+
+        private final int[] table;
+        private final int mask;
+        private int additions;
+
+        /**
+         * Creates a sketch
+         * @param capacity the number of entries the cache holds
+         */
+        FrequencySketch(int capacity) {
+            int n = 16;
+            while (n < capacity) { n <<= 1; }
+            table = new int[n * 4];
+            mask = n - 1;
+        }
+
+        /**
+         * @param hash a mixed hash
+         * @param row the row of the sketch, 0 to 3
+         * @return the counter index for hash in row
+         */
+        private int index(int hash, int row) {
+            int h = hash * (0x9e3779b9 + 2 * row);
+            return row * (mask + 1) + ((h ^ (h >>> 16)) & mask);
+        }
+
+        /**
+         * Records one request for a key
+         * @param hash the mixed hash of the key
+         */
+        void increment(int hash) {
+            for (int row = 0; row < 4; row++) {
+                table[index(hash, row)]++;
+            }
+            if (++additions == (mask + 1) * 10) {
+                for (int i = 0; i < table.length; i++) { table[i] >>>= 1; }
+                additions >>>= 1;
+            }
+        }
+
+        /**
+         * @param hash the mixed hash of a key
+         * @return the estimated number of requests for the key
+         */
+        int frequency(int hash) {
+            int res = Integer.MAX_VALUE;
+            for (int row = 0; row < 4; row++) {
+                res = Math.min(res, table[index(hash, row)]);
+            }
+            return res;
+        }
+    }
+
+    private final RobinHoodHashMap<K, Entry<K, V>> map;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long ttlNanos;
+    private final FrequencySketch sketch;
+    private Entry<K, V> head;
+    private Entry<K, V> tail;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache bounded only by entry count
+     * @param maxEntries the most entries the cache will hold
+     */
+    public LruCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, null, 0, TimeUnit.NANOSECONDS, false);
+    }
+
+    /**
+     * Creates a cache
+     * @param maxEntries the most entries the cache will hold
+     * @param maxWeight the most total weight the cache will hold
+     * @param weigher gives the weight of each entry; null weighs every
+     *                entry as 1
+     * @param ttl how long after being written an entry expires; 0 for never
+     * @param unit the unit of ttl
+     * @param frequencyAdmission true to only admit new keys that are
+     *                           requested more often than the eviction
+     *                           victim
+     */
+    public LruCache(int maxEntries, long maxWeight,
+            Weigher<? super K, ? super V> weigher, long ttl, TimeUnit unit,
+            boolean frequencyAdmission) {
+        if (maxEntries < 1 || maxWeight < 0 || ttl < 0 || unit == null) {
+            throw new IllegalArgumentException();
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.sketch = frequencyAdmission ? new FrequencySketch(maxEntries)
+                : null;
+        map = new RobinHoodHashMap<K, Entry<K, V>>();
+    }
+
+    /**
+     * @param key a key
+     * @return a mixed hash of key for the frequency sketch
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x85ebca6b;
+        return h ^ (h >>> 15);
+    }
+
+    /**
+     * Removes an entry from the recency list
+     * @param e the entry to unlink
+     */
+    private void unlink(Entry<K, V> e) {
+        if (e.previous == null) {
+            head = e.next;
+        } else {
+            e.previous.next = e.next;
+        }
+        if (e.next == null) {
+            tail = e.previous;
+        } else {
+            e.next.previous = e.previous;
+        }
+        e.previous = null;
+        e.next = null;
+    }
+
+    /**
+     * Puts an unlinked entry at the most recently used end of the list
+     * @param e the entry to link
+     */
+    private void linkFirst(Entry<K, V> e) {
+        e.next = head;
+        if (head != null) { head.previous = e; }
+        head = e;
+        if (tail == null) { tail = e; }
+    }
+
+    /**
+     * Removes an entry from both the map and the list
+     * @param e the entry to drop
+     */
+    private void drop(Entry<K, V> e) {
+        map.remove(e.key);
+        unlink(e);
+        weight -= e.weight;
+    }
+
+    /**
+     * @param e an entry
+     * @param now the current time in nanoseconds
+     * @return true if e was written more than ttl ago
+     */
+    private boolean isExpired(Entry<K, V> e, long now) {
+        return ttlNanos != 0 && now - e.writeTime >= ttlNanos;
+    }
+
+    /**
+     * Evicts least recently used entries until the cache is within bounds
+     */
+    private void evict() {
+        while (tail != null
+                && (map.size() > maxEntries || weight > maxWeight)) {
+            drop(tail);
+            evictions++;
+        }
+    }
+
+    /**
+     * Gets the value for a key and marks it most recently used
+     * @param key the key to look up
+     * @return the value, or null if key is not cached or has expired
+     */
+    public V get(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        if (sketch != null) { sketch.increment(hash(key)); }
+        Entry<K, V> e = map.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(e, System.nanoTime())) {
+            drop(e);
+            misses++;
+            return null;
+        }
+        hits++;
+        if (e != head) {
+            unlink(e);
+            linkFirst(e);
+        }
+        return e.value;
+    }
+
+    /**
+     * Adds or replaces the value for a key, evicting least recently used
+     * entries if the cache goes over its bounds
+     * @param key the key
+     * @param value the value
+     * @return the previous value for key, null if there was none
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        long w = weigher == null ? 1 : weigher.weigh(key, value);
+        if (w < 0) { throw new IllegalStateException("negative weight"); }
+        long now = System.nanoTime();
+        Entry<K, V> e = map.get(key);
+        V res = null;
+        if (e != null) {
+            res = isExpired(e, now) ? null : e.value;
+            unlink(e);
+            weight -= e.weight;
+        } else {
+            if (sketch != null && tail != null && map.size() >= maxEntries) {
+                int h = hash(key);
+                sketch.increment(h);
+                if (sketch.frequency(h) <= sketch.frequency(hash(tail.key))) {
+                    return null;
+                }
+            }
+            e = new Entry<K, V>(key);
+            map.add(key, e);
+        }
+        e.value = value;
+        e.weight = w;
+        e.writeTime = now;
+        weight += w;
+        linkFirst(e);
+        evict();
+        return res;
+    }
+
+    /**
+     * Removes a key from the cache
+     * @param key the key to remove
+     * @return the removed value, null if key was not cached or had expired
+     */
+    public V remove(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        Entry<K, V> e = map.get(key);
+        if (e == null) { return null; }
+        drop(e);
+        return isExpired(e, System.nanoTime()) ? null : e.value;
+    }
+
+    /**
+     * Checks for a key without changing its recency or the counters
+     * @param key the key to look up
+     * @return true if key is cached and not expired
+     */
+    public boolean contains(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        Entry<K, V> e = map.get(key);
+        return e != null && !isExpired(e, System.nanoTime());
+    }
+
+    /**
+     * Removes every entry. The counters are kept.
+     */
+    public void clear() {
+        map.clear();
+        head = null;
+        tail = null;
+        weight = 0;
+    }
+
+    /**
+     * @return the number of entries held, including expired entries that
+     * have not been noticed yet
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * @return the total weight of the entries held
+     */
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * @return the number of gets that found a live entry
+     */
+    public long hitCount() {
+        return hits;
+    }
+
+    /**
+     * @return the number of gets that found nothing or an expired entry
+     */
+    public long missCount() {
+        return misses;
+    }
+
+    /**
+     * @return the number of entries evicted to stay within bounds
+     */
+    public long evictionCount() {
+        return evictions;
+    }
+}
@@ -0,0 +1,565 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Off heap hash map stored in a memory mapped file. Keys and values are
+ * serialized to fixed widths by a Codec and laid out in slots using the
+ * same linear probing and tombstone scheme as HashMap. Nothing but the
+ * mapping lives on the heap, and since the file holds the whole table,
+ * reopening it serves lookups immediately without rebuilding anything.
+ *
+ * Slots are hashed and compared by their serialized bytes, so a file
+ * written by one process can be read by another regardless of how the
+ * key class implements hashCode. The capacity is fixed when the file is
+ * created, and the map is not thread safe. Tombstones count against the
+ * load factor; when they push it over, the add that does so first
+ * compacts the file in place, shifting entries back over tombstones
+ * until every tombstone is an empty slot again. That add takes time
+ * proportional to the capacity. Compaction records each move in the
+ * header before making it, so if the process dies part way the file
+ * still holds every entry, and the next open finishes the move it was
+ * in and the compaction before returning.
+ */
+public class MappedHashMap<K, V> implements HashMapInterface<K, V>,
+       Closeable {
+
+    /**
+     * Converts values to and from a fixed number of bytes
+     * @param <T> the type being serialized
+     */
+    public interface Codec<T> {
+
+        /**
+         * @return the number of bytes every serialized value takes
+         */
+        int width();
+
+        /**
+         * Writes a value
+         * @param buf the buffer to write to
+         * @param offset the absolute position to start writing at
+         * @param value the value to write
+         */
+        void write(ByteBuffer buf, int offset, T value);
+
+        /**
+         * Reads a value
+         * @param buf the buffer to read from
+         * @param offset the absolute position to start reading at
+         * @return the value that was read
+         */
+        T read(ByteBuffer buf, int offset);
+    }
+
+    public static final Codec<Integer> INT_CODEC = new Codec<Integer>() {
+        @Override
+        public int width() { return 4; }
+
+        @Override
+        public void write(ByteBuffer buf, int offset, Integer value) {
+            buf.putInt(offset, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buf, int offset) {
+            return buf.getInt(offset);
+        }
+    };
+
+    public static final Codec<Long> LONG_CODEC = new Codec<Long>() {
+        @Override
+        public int width() { return 8; }
+
+        @Override
+        public void write(ByteBuffer buf, int offset, Long value) {
+            buf.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buf, int offset) {
+            return buf.getLong(offset);
+        }
+    };
+
+    /**
+     * Makes a codec for strings of up to a given UTF-8 length
+     * @param maxBytes the largest encoded length that can be stored
+     * @return a codec that stores a length prefix and the UTF-8 bytes
+     */
+    public static Codec<String> stringCodec(final int maxBytes) {
+        if (maxBytes < 0 || maxBytes > Short.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+        return new Codec<String>() {
+            @Override
+            public int width() { return 2 + maxBytes; }
+
+            @Override
+            public void write(ByteBuffer buf, int offset, String value) {
+                byte[] b = value.getBytes(StandardCharsets.UTF_8);
+                if (b.length > maxBytes) {
+                    throw new IllegalArgumentException();
+                }
+                buf.putShort(offset, (short) b.length);
+                for (int i = 0; i < maxBytes; i++) {
+                    buf.put(offset + 2 + i, i < b.length ? b[i] : 0);
+                }
+            }
+
+            @Override
+            public String read(ByteBuffer buf, int offset) {
+                byte[] b = new byte[buf.getShort(offset)];
+                for (int i = 0; i < b.length; i++) {
+                    b[i] = buf.get(offset + 2 + i);
+                }
+                return new String(b, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    private static final long MAGIC = 0x4d41505048415348L;
+    private static final int HEADER_SIZE = 64;
+    private static final int CHUNK_BYTES = 1 << 30;
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] chunks;
+    private final long capacity;
+    private final int slotWidth;
+    private final long slotsPerChunk;
+    private final byte[] keyBytes;
+    private final ByteBuffer keyScratch;
+    private long size;
+    private long removed;
+
+    /**
+     * Opens the map stored in a file, creating the file if it is missing
+     * or empty
+     * @param path the file holding the map
+     * @param keyCodec serializes the keys
+     * @param valueCodec serializes the values
+     * @param capacity the number of slots to create the file with; ignored
+     *                 when an existing file is opened
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedHashMap(String path, Codec<K> keyCodec, Codec<V> valueCodec,
+            long capacity) throws IOException {
+        if (path == null || keyCodec == null || valueCodec == null
+                || capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        slotWidth = 1 + keyCodec.width() + valueCodec.width();
+        slotsPerChunk = CHUNK_BYTES / slotWidth;
+        keyBytes = new byte[keyCodec.width()];
+        keyScratch = ByteBuffer.wrap(keyBytes);
+        file = new RandomAccessFile(path, "rw");
+        FileChannel ch = file.getChannel();
+        boolean fresh = ch.size() == 0;
+        if (fresh) { file.setLength(HEADER_SIZE + capacity * slotWidth); }
+        header = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (fresh) {
+            header.putLong(0, MAGIC);
+            header.putInt(8, keyCodec.width());
+            header.putInt(12, valueCodec.width());
+            header.putLong(16, capacity);
+            header.putLong(24, 0);
+            header.putLong(32, 0);
+            header.putLong(40, 0);
+            header.putLong(48, -1);
+        } else if (header.getLong(0) != MAGIC
+                || header.getInt(8) != keyCodec.width()
+                || header.getInt(12) != valueCodec.width()) {
+            file.close();
+            throw new IOException("not a map with this key and value width");
+        }
+        this.capacity = header.getLong(16);
+        size = header.getLong(24);
+        removed = header.getLong(32);
+        chunks = new MappedByteBuffer[
+                (int) ((this.capacity + slotsPerChunk - 1) / slotsPerChunk)];
+        for (int c = 0; c < chunks.length; c++) {
+            long slots = Math.min(slotsPerChunk,
+                    this.capacity - c * slotsPerChunk);
+            chunks[c] = ch.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + c * slotsPerChunk * slotWidth,
+                    slots * slotWidth);
+        }
+        if (header.getLong(40) != 0) {
+            finishMove(new byte[slotWidth - 1]);
+            compact();
+        }
+    }
+
+    /**
+     * @param slot a slot index
+     * @return the mapping that holds slot
+     */
+    private MappedByteBuffer chunk(long slot) {
+        return chunks[(int) (slot / slotsPerChunk)];
+    }
+
+    /**
+     * @param slot a slot index
+     * @return the offset of slot within its mapping
+     */
+    private int offset(long slot) {
+        return (int) (slot % slotsPerChunk) * slotWidth;
+    }
+
+    /**
+     * Serializes a key into the scratch buffer and hashes its bytes with
+     * FNV-1a, which is stable across processes
+     * @param key the key to serialize
+     * @return the home slot of key
+     */
+    private long home(K key) {
+        keyCodec.write(keyScratch, 0, key);
+        return home();
+    }
+
+    /**
+     * Hashes the key bytes already in the scratch buffer
+     * @return the home slot of those bytes
+     */
+    private long home() {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < keyBytes.length; i++) {
+            h ^= keyBytes[i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return (h & Long.MAX_VALUE) % capacity;
+    }
+
+    /**
+     * Checks whether a slot holds the key in the scratch buffer
+     * @param slot the slot to compare
+     * @return true if the key bytes in slot match
+     */
+    private boolean keyMatches(long slot) {
+        MappedByteBuffer buf = chunk(slot);
+        int off = offset(slot) + 1;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (buf.get(off + i) != keyBytes[i]) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the slot holding key
+     * @param key the key being searched for
+     * @return the slot of key, -1 if the key is not in the map
+     */
+    private long find(K key) {
+        long i = home(key);
+        for (long n = 0; n < capacity; n++) {
+            byte state = chunk(i).get(offset(i));
+            if (state == EMPTY) { return -1; }
+            if (state == FULL && keyMatches(i)) { return i; }
+            if (++i == capacity) { i = 0; }
+        }
+        return -1;
+    }
+
+    /**
+     * @param slot an occupied slot
+     * @return the value stored in slot
+     */
+    private V readValue(long slot) {
+        return valueCodec.read(chunk(slot), offset(slot) + 1 + keyBytes.length);
+    }
+
+    /**
+     * Updates the entry count in memory and in the file header
+     * @param newSize the new number of entries
+     */
+    private void setSize(long newSize) {
+        size = newSize;
+        header.putLong(24, newSize);
+    }
+
+    /**
+     * Updates the tombstone count in memory and in the file header
+     * @param newRemoved the new number of tombstones
+     */
+    private void setRemoved(long newRemoved) {
+        removed = newRemoved;
+        header.putLong(32, newRemoved);
+    }
+
+    /**
+     * Removes every tombstone from the file. Each tombstone is treated as
+     * a hole: the entries after it in its cluster are scanned and any
+     * whose probe from its home slot passes the hole is moved back into
+     * it, leaving a new hole where it was, and the last hole becomes
+     * empty. Between moves the table is always one that lookups can use.
+     * The header is flagged for the whole compaction, so a map reopened
+     * after a crash finishes it.
+     */
+    private void compact() {
+        header.putLong(40, 1);
+        force();
+        byte[] buf = new byte[slotWidth - 1];
+        for (long i = 0; i < capacity; i++) {
+            if (chunk(i).get(offset(i)) == REMOVED) { fillHole(i, buf); }
+        }
+        setRemoved(0);
+        header.putLong(40, 0);
+        force();
+    }
+
+    /**
+     * Moves entries back into a hole left by a tombstone until the end of
+     * its cluster, then empties the last hole
+     * @param hole a slot marked REMOVED
+     * @param buf scratch space for one slot's key and value bytes
+     */
+    private void fillHole(long hole, byte[] buf) {
+        long j = hole;
+        while (true) {
+            if (++j == capacity) { j = 0; }
+            byte state = chunk(j).get(offset(j));
+            if (state == EMPTY || j == hole) { break; }
+            if (state != FULL) { continue; }
+            readSlot(j, buf);
+            System.arraycopy(buf, 0, keyBytes, 0, keyBytes.length);
+            long r = home();
+            if ((j - r + capacity) % capacity
+                    >= (j - hole + capacity) % capacity) {
+                header.putLong(48, j);
+                header.putLong(56, hole);
+                move(j, hole, buf);
+                header.putLong(48, -1);
+                hole = j;
+            }
+        }
+        chunk(hole).put(offset(hole), EMPTY);
+    }
+
+    /**
+     * Copies an entry into a hole and leaves a tombstone where it was
+     * @param from the FULL slot being moved
+     * @param to the REMOVED slot it moves to
+     * @param buf the key and value bytes of from
+     */
+    private void move(long from, long to, byte[] buf) {
+        writeSlot(to, buf);
+        chunk(from).put(offset(from), REMOVED);
+    }
+
+    /**
+     * Completes the move recorded in the header, if any, when reopening a
+     * map whose compaction was cut short. The source is still FULL until
+     * the move is complete, so copying it again is always safe.
+     * @param buf scratch space for one slot's key and value bytes
+     */
+    private void finishMove(byte[] buf) {
+        long from = header.getLong(48);
+        if (from == -1) { return; }
+        if (chunk(from).get(offset(from)) == FULL) {
+            readSlot(from, buf);
+            move(from, header.getLong(56), buf);
+        }
+        header.putLong(48, -1);
+    }
+
+    /**
+     * Copies the key and value bytes of a slot
+     * @param slot the slot to read
+     * @param dest receives the bytes after the state byte
+     */
+    private void readSlot(long slot, byte[] dest) {
+        MappedByteBuffer buf = chunk(slot);
+        int off = offset(slot) + 1;
+        for (int b = 0; b < dest.length; b++) { dest[b] = buf.get(off + b); }
+    }
+
+    /**
+     * Fills a slot with key and value bytes and marks it FULL
+     * @param slot the slot to write
+     * @param src the bytes after the state byte
+     */
+    private void writeSlot(long slot, byte[] src) {
+        MappedByteBuffer buf = chunk(slot);
+        int off = offset(slot);
+        for (int b = 0; b < src.length; b++) { buf.put(off + 1 + b, src[b]); }
+        buf.put(off, FULL);
+    }
+
+    /**
+     * Adds or replaces an entry. If tombstones would push the load factor
+     * over its limit, the file is compacted first, which takes time
+     * proportional to the capacity.
+     * @param key the key, may not be null
+     * @param value the value, may not be null
+     * @return the value key had before, null if it was not in the map
+     * @throws IllegalStateException if the map is full
+     */
+    @Override
+    public V add(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        long i = home(key);
+        long tomb = -1;
+        for (long n = 0; n < capacity; n++) {
+            byte state = chunk(i).get(offset(i));
+            if (state == EMPTY) { break; }
+            if (state == FULL && keyMatches(i)) {
+                V res = readValue(i);
+                valueCodec.write(chunk(i), offset(i) + 1 + keyBytes.length,
+                        value);
+                return res;
+            }
+            if (state == REMOVED && tomb == -1) { tomb = i; }
+            if (++i == capacity) { i = 0; }
+        }
+        if (((size + 1) / (double) capacity) > MAX_LOAD_FACTOR) {
+            throw new IllegalStateException("map is at capacity");
+        }
+        if (tomb != -1) {
+            i = tomb;
+            setRemoved(removed - 1);
+        } else if ((size + removed + 1) / (double) capacity
+                > MAX_LOAD_FACTOR) {
+            compact();
+            return add(key, value);
+        }
+        MappedByteBuffer buf = chunk(i);
+        int off = offset(i);
+        for (int b = 0; b < keyBytes.length; b++) {
+            buf.put(off + 1 + b, keyBytes[b]);
+        }
+        valueCodec.write(buf, off + 1 + keyBytes.length, value);
+        buf.put(off, FULL);
+        setSize(size + 1);
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        long i = find(key);
+        if (i == -1) { return null; }
+        V res = readValue(i);
+        chunk(i).put(offset(i), REMOVED);
+        setSize(size - 1);
+        setRemoved(removed + 1);
+        return res;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        long i = find(key);
+        return i == -1 ? null : readValue(i);
+    }
+
+    @Override
+    public boolean contains(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        return find(key) != -1;
+    }
+
+    @Override
+    public void clear() {
+        for (long i = 0; i < capacity; i++) {
+            chunk(i).put(offset(i), EMPTY);
+        }
+        setSize(0);
+        setRemoved(0);
+    }
+
+    /**
+     * @return the number of entries in the map
+     * @throws IllegalStateException if the count does not fit in an int;
+     * use longSize for such maps
+     */
+    @Override
+    public int size() {
+        if (size > Integer.MAX_VALUE) { throw new IllegalStateException(); }
+        return (int) size;
+    }
+
+    /**
+     * @return the number of entries in the map
+     */
+    public long longSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of slots in the file
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Copies every live entry onto the heap. Intended for small maps and
+     * debugging only.
+     * @return a new array holding an entry for every key in the map
+     */
+    @Override
+    public MapEntry<K, V>[] toArray() {
+        List<MapEntry<K, V>> res = new ArrayList<MapEntry<K, V>>();
+        for (long i = 0; i < capacity; i++) {
+            MappedByteBuffer buf = chunk(i);
+            int off = offset(i);
+            if (buf.get(off) == FULL) {
+                res.add(new MapEntry<K, V>(keyCodec.read(buf, off + 1),
+                        readValue(i)));
+            }
+        }
+        return res.toArray(new MapEntry[res.size()]);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> res = new HashSet<K>();
+        for (long i = 0; i < capacity; i++) {
+            MappedByteBuffer buf = chunk(i);
+            int off = offset(i);
+            if (buf.get(off) == FULL) { res.add(keyCodec.read(buf, off + 1)); }
+        }
+        return res;
+    }
+
+    @Override
+    public List<V> values() {
+        ArrayList<V> res = new ArrayList<V>();
+        for (long i = 0; i < capacity; i++) {
+            if (chunk(i).get(offset(i)) == FULL) { res.add(readValue(i)); }
+        }
+        return res;
+    }
+
+    /**
+     * Writes every modified page back to the file
+     */
+    public void force() {
+        header.force();
+        for (MappedByteBuffer buf : chunks) { buf.force(); }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        file.close();
+    }
+}
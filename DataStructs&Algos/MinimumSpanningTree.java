@@ -81,4 +81,106 @@ public class MinimumSpanningTree {
             return out;
         } else { return null; }
     }
+
+    /**
+     * Run the eager version of Prim's algorithm on the given graph and
+     * return the minimum spanning tree. Instead of queueing every edge, an
+     * IndexedPriorityQueue holds one entry per vertex outside the tree,
+     * keyed by the cheapest edge reaching it, and lowers that key in place
+     * when a cheaper edge is found. The queue never holds more than V
+     * entries. If no MST exists, return null.
+     *
+     * @param g The graph to be processed. Will never be null.
+     * @param start The ID of the start node. Will always exist in the graph.
+     * @return the MST of the graph; null if no valid MST exists.
+     */
+    public static Collection<Edge> eagerPrims(Graph g, int start) {
+        Set<Vertex> vertSet = g.getVertices();
+        Map<Vertex, Integer> ids = new java.util.HashMap<>();
+        for (Vertex v : vertSet) {
+            ids.put(v, ids.size());
+        }
+        IndexedPriorityQueue<Edge> eQ = new IndexedPriorityQueue<>(ids.size());
+        boolean[] inTree = new boolean[ids.size()];
+        Collection<Edge> out = new HashSet<>();
+        Vertex u = new Vertex(start);
+        inTree[ids.get(u)] = true;
+        while (u != null) {
+            Map<Vertex, Integer> adj = g.getAdjacencies(u);
+            for (Vertex v : adj.keySet()) {
+                int id = ids.get(v);
+                if (!inTree[id]) {
+                    Edge newE = new Edge(u, v, adj.get(v));
+                    if (!eQ.contains(id)) {
+                        eQ.insert(id, newE);
+                    } else if (newE.compareTo(eQ.keyOf(id)) < 0) {
+                        eQ.decreaseKey(id, newE);
+                    }
+                }
+            }
+            if (eQ.isEmpty()) {
+                u = null;
+            } else {
+                Edge next = eQ.findMin();
+                inTree[eQ.deleteMin()] = true;
+                out.add(next);
+                u = next.getV();
+            }
+        }
+        if (out.size() == vertSet.size() - 1) {
+            return out;
+        } else { return null; }
+    }
+
+    /**
+     * Run the eager version of Prim's algorithm using the given addressable
+     * queue, such as a PairingHeap or FibonacciHeap, and return the minimum
+     * spanning tree. Each vertex outside the tree keeps one handle in the
+     * queue, keyed by the cheapest edge reaching it, and decreaseKey lowers
+     * it in place. If no MST exists, return null.
+     *
+     * @param g The graph to be processed. Will never be null.
+     * @param start The ID of the start node. Will always exist in the graph.
+     * @param eQ An empty queue to run the algorithm with.
+     * @return the MST of the graph; null if no valid MST exists.
+     */
+    public static Collection<Edge> eagerPrims(Graph g, int start,
+            AddressablePriorityQueue<Edge> eQ) {
+        if (eQ == null || !eQ.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        Set<Vertex> vertSet = g.getVertices();
+        Map<Vertex, AddressablePriorityQueue.Handle<Edge>> handles =
+                new java.util.HashMap<>();
+        Set<Vertex> inTree = new HashSet<>();
+        Collection<Edge> out = new HashSet<>();
+        Vertex u = new Vertex(start);
+        inTree.add(u);
+        while (u != null) {
+            Map<Vertex, Integer> adj = g.getAdjacencies(u);
+            for (Vertex v : adj.keySet()) {
+                if (!inTree.contains(v)) {
+                    Edge newE = new Edge(u, v, adj.get(v));
+                    AddressablePriorityQueue.Handle<Edge> h = handles.get(v);
+                    if (h == null) {
+                        handles.put(v, eQ.push(newE));
+                    } else if (newE.compareTo(h.getItem()) < 0) {
+                        eQ.decreaseKey(h, newE);
+                    }
+                }
+            }
+            if (eQ.isEmpty()) {
+                u = null;
+            } else {
+                Edge next = eQ.deleteMin();
+                u = next.getV();
+                handles.remove(u);
+                inTree.add(u);
+                out.add(next);
+            }
+        }
+        if (out.size() == vertSet.size() - 1) {
+            return out;
+        } else { return null; }
+    }
 }
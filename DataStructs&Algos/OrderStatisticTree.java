@@ -0,0 +1,259 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AVL tree set in which every node also records the size of its subtree.
+ * The sizes are fixed up on the way back from every insertion and removal
+ * and by each rotation, which lets the tree find the k-th smallest item,
+ * the rank of an item and the number of items in a range in O(log n)
+ * without walking the items in order.
+ *
+ * Like AVLTree, adding an item that is already present does nothing.
+ */
+public class OrderStatisticTree<T extends Comparable<T>> {
+
+    /**
+     * A node that also records the number of nodes in its subtree
+     */
+    private static final class SizedNode<T extends Comparable<T>>
+        extends Node<T> {
+
+        private int size = 1;
+
+        /**
+         * Creates a leaf
+         * @param data the data held by the node
+         */
+        SizedNode(T data) {
+            super(data);
+            setHeight(0);
+        }
+    }
+
+    /**
+     * Recalculates the size of a node from its children
+     */
+    private final AVLBalance.Augment<T> sizes = new AVLBalance.Augment<T>() {
+        @Override
+        public void update(Node<T> aNode) {
+            ((SizedNode<T>) aNode).size = sizeOf(aNode.getLeft())
+                    + sizeOf(aNode.getRight()) + 1;
+        }
+    };
+
+    private Node<T> root;
+
+    /**
+     * @param aNode a node, possibly null
+     * @return the number of nodes in the subtree at aNode
+     */
+    private int sizeOf(Node<T> aNode) {
+        return aNode == null ? 0 : ((SizedNode<T>) aNode).size;
+    }
+
+    /**
+     * Recursive method used to add to the tree
+     * @param here the current node
+     * @param data the item to add
+     * @return the new parent of the subtree
+     */
+    private Node<T> add(Node<T> here, T data) {
+        if (here == null) { return new SizedNode<T>(data); }
+        int cmp = data.compareTo(here.getData());
+        if (cmp < 0) {
+            here.setLeft(add(here.getLeft(), data));
+        } else if (cmp > 0) {
+            here.setRight(add(here.getRight(), data));
+        } else {
+            return here;
+        }
+        return AVLBalance.balance(here, sizes);
+    }
+
+    /**
+     * Recursive method used to remove from the tree
+     * @param here the current node
+     * @param data the item to remove
+     * @param res a holder for the removed item
+     * @return the new parent of the subtree
+     */
+    private Node<T> remove(Node<T> here, T data, Object[] res) {
+        if (here == null) { return null; }
+        int cmp = data.compareTo(here.getData());
+        if (cmp < 0) {
+            here.setLeft(remove(here.getLeft(), data, res));
+        } else if (cmp > 0) {
+            here.setRight(remove(here.getRight(), data, res));
+        } else {
+            res[0] = here.getData();
+            if (here.getLeft() == null) { return here.getRight(); }
+            if (here.getRight() == null) { return here.getLeft(); }
+            Node<T> successor = here.getRight();
+            while (successor.getLeft() != null) {
+                successor = successor.getLeft();
+            }
+            here.setData(successor.getData());
+            here.setRight(remove(here.getRight(), successor.getData(),
+                    new Object[1]));
+        }
+        return AVLBalance.balance(here, sizes);
+    }
+
+    /**
+     * Adds an item to the tree
+     * @param data the item to add
+     */
+    public void add(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        root = add(root, data);
+    }
+
+    /**
+     * Removes an item from the tree
+     * @param data the item to remove
+     * @return the item that was removed, null if it was not in the tree
+     */
+    public T remove(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Object[] res = new Object[1];
+        root = remove(root, data, res);
+        return (T) res[0];
+    }
+
+    /**
+     * Returns the item in the tree equal to data
+     * @param data the item to search for
+     * @return the stored item, null if it is not in the tree
+     */
+    public T get(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> temp = root;
+        while (temp != null) {
+            int cmp = data.compareTo(temp.getData());
+            if (cmp == 0) { return temp.getData(); }
+            temp = cmp > 0 ? temp.getRight() : temp.getLeft();
+        }
+        return null;
+    }
+
+    /**
+     * @param data the item to search for
+     * @return true if the item is in the tree
+     */
+    public boolean contains(T data) {
+        return get(data) != null;
+    }
+
+    /**
+     * Finds the k-th smallest item
+     * @param k the 0-based index of the item in ascending order
+     * @return the item with exactly k smaller items in the tree
+     * @throws IndexOutOfBoundsException if k is not in [0, size)
+     */
+    public T select(int k) {
+        if (k < 0 || k >= size()) { throw new IndexOutOfBoundsException(); }
+        Node<T> temp = root;
+        while (true) {
+            int leftSize = sizeOf(temp.getLeft());
+            if (k < leftSize) {
+                temp = temp.getLeft();
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                temp = temp.getRight();
+            } else {
+                return temp.getData();
+            }
+        }
+    }
+
+    /**
+     * Counts the items smaller than data. data need not be in the tree.
+     * @param data the item to compare against
+     * @return the number of items less than data, which is its 0-based
+     * index if it is in the tree
+     */
+    public int rank(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        return countBelow(data, false);
+    }
+
+    /**
+     * Counts the items below a bound
+     * @param data the bound
+     * @param inclusive whether items equal to the bound are counted
+     * @return the number of items less than, or not greater than, data
+     */
+    private int countBelow(T data, boolean inclusive) {
+        int res = 0;
+        Node<T> temp = root;
+        while (temp != null) {
+            int cmp = data.compareTo(temp.getData());
+            if (cmp > 0 || (cmp == 0 && inclusive)) {
+                res += sizeOf(temp.getLeft()) + 1;
+                temp = temp.getRight();
+            } else {
+                temp = temp.getLeft();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Counts the items in a closed range
+     * @param low the lowest item counted
+     * @param high the highest item counted
+     * @return the number of items x with low <= x <= high, 0 if low is
+     * greater than high
+     */
+    public int countRange(T low, T high) {
+        if (low == null || high == null) {
+            throw new IllegalArgumentException();
+        }
+        if (low.compareTo(high) > 0) { return 0; }
+        return countBelow(high, true) - countBelow(low, false);
+    }
+
+    /**
+     * @return true if the tree is empty
+     */
+    public boolean isEmpty() { return root == null; }
+
+    /**
+     * @return the number of items in the tree
+     */
+    public int size() { return sizeOf(root); }
+
+    /**
+     * @return the height of the tree, -1 if it is empty
+     */
+    public int height() { return AVLBalance.heightOf(root); }
+
+    /**
+     * Removes every item
+     */
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Recursive method used to append nodes to a list in order
+     * @param here the current node in the tree
+     * @param data the list that is being appended to
+     * @return the new list after being added to
+     */
+    private List<T> inorder(Node<T> here, List<T> data) {
+        if (here != null) {
+            inorder(here.getLeft(), data);
+            data.add(here.getData());
+            inorder(here.getRight(), data);
+        }
+        return data;
+    }
+
+    /**
+     * @return a new list of the items in ascending order
+     */
+    public List<T> inorder() {
+        return inorder(root, new ArrayList<T>(size()));
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Pairing heap: a heap ordered multiway tree where insert, meld and
+ * decreaseKey each just link two trees in O(1), and deleteMin pairs up
+ * the children of the root in two passes in O(log n) amortized time.
+ * It is simple and, in practice, usually the fastest meldable heap.
+ */
+public class PairingHeap<T extends Comparable<? super T>>
+       implements AddressablePriorityQueue<T> {
+
+    /**
+     * A tree node. The first child is reached through child and the rest
+     * through sibling; prev is the parent for a first child and the left
+     * sibling otherwise.
+     */
+    private static final class Node<T> implements Handle<T> {
+
+        private T item;
+        private Node<T> child;
+        private Node<T> sibling;
+        private Node<T> prev;
+        private boolean live = true;
+        private HandleOwner owner;
+
+        /**
+         * Creates a single node tree
+         * @param item the item held by the node
+         * @param owner the owner of the heap the node is pushed into
+         */
+        Node(T item, HandleOwner owner) {
+            this.item = item;
+            this.owner = owner;
+        }
+
+        /**
+         * @return the heap the node is in, null if that heap was emptied
+         */
+        Object heap() {
+            owner = owner.resolve();
+            return owner.heap();
+        }
+
+        @Override
+        public T getItem() { return item; }
+
+        @Override
+        public boolean isLive() { return live && heap() != null; }
+    }
+
+    private Node<T> root;
+    private int size;
+    private HandleOwner owner = new HandleOwner(this);
+
+    /**
+     * Links two trees, making the root with the larger item the first
+     * child of the other
+     * @param a the root of a tree, with no siblings or parent
+     * @param b the root of a tree, with no siblings or parent
+     * @return the root of the linked tree
+     */
+    private Node<T> link(Node<T> a, Node<T> b) {
+        if (a == null) { return b; }
+        if (b == null) { return a; }
+        if (b.item.compareTo(a.item) < 0) {
+            Node<T> temp = a;
+            a = b;
+            b = temp;
+        }
+        b.prev = a;
+        b.sibling = a.child;
+        if (a.child != null) { a.child.prev = b; }
+        a.child = b;
+        return a;
+    }
+
+    /**
+     * Merges a list of sibling trees into one: first links them in pairs
+     * from left to right, then links the results from right to left
+     * @param first the first tree in the sibling list
+     * @return the root of the merged tree
+     */
+    private Node<T> combine(Node<T> first) {
+        if (first == null) { return null; }
+        Node<T> pairs = null;
+        while (first != null) {
+            Node<T> a = first;
+            Node<T> b = a.sibling;
+            first = b == null ? null : b.sibling;
+            a.sibling = null;
+            a.prev = null;
+            if (b != null) {
+                b.sibling = null;
+                b.prev = null;
+            }
+            Node<T> linked = link(a, b);
+            linked.sibling = pairs;
+            pairs = linked;
+        }
+        Node<T> res = null;
+        while (pairs != null) {
+            Node<T> next = pairs.sibling;
+            pairs.sibling = null;
+            res = link(res, pairs);
+            pairs = next;
+        }
+        return res;
+    }
+
+    /**
+     * Detaches a non root node, with its subtree, from its parent
+     * @param n the node to cut
+     */
+    private void cut(Node<T> n) {
+        if (n.prev.child == n) {
+            n.prev.child = n.sibling;
+        } else {
+            n.prev.sibling = n.sibling;
+        }
+        if (n.sibling != null) { n.sibling.prev = n.prev; }
+        n.sibling = null;
+        n.prev = null;
+    }
+
+    @Override
+    public Handle<T> push(T item) {
+        if (item == null) { throw new IllegalArgumentException(); }
+        Node<T> n = new Node<T>(item, owner);
+        root = link(root, n);
+        size++;
+        return n;
+    }
+
+    @Override
+    public void insert(T item) {
+        push(item);
+    }
+
+    @Override
+    public void decreaseKey(Handle<T> handle, T item) {
+        if (!(handle instanceof Node) || item == null) {
+            throw new IllegalArgumentException();
+        }
+        Node<T> n = (Node<T>) handle;
+        if (!n.live || n.heap() != this || item.compareTo(n.item) > 0) {
+            throw new IllegalArgumentException();
+        }
+        n.item = item;
+        if (n != root) {
+            cut(n);
+            root = link(root, n);
+        }
+    }
+
+    /**
+     * Moves every item of another heap into this one in O(1). The other
+     * heap is left empty, and handles from it now refer to items in this
+     * heap and can be passed to its decreaseKey.
+     * @param other the heap to take the items of
+     */
+    public void meld(PairingHeap<T> other) {
+        if (other == null || other == this) {
+            throw new IllegalArgumentException();
+        }
+        root = link(root, other.root);
+        size += other.size;
+        other.root = null;
+        other.size = 0;
+        other.owner.forwardTo(owner);
+        other.owner = new HandleOwner(other);
+    }
+
+    @Override
+    public T findMin() {
+        return root == null ? null : root.item;
+    }
+
+    @Override
+    public T deleteMin() {
+        if (root == null) { return null; }
+        Node<T> old = root;
+        root = combine(old.child);
+        old.child = null;
+        old.live = false;
+        size--;
+        return old.item;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every item in O(1). Handles to the removed items stop being
+     * live.
+     */
+    @Override
+    public void makeEmpty() {
+        root = null;
+        size = 0;
+        owner.retire();
+        owner = new HandleOwner(this);
+    }
+}
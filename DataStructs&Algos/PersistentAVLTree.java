@@ -0,0 +1,327 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable AVL tree set. add and remove never change a tree; they copy
+ * the O(log n) nodes on the path to the change and return a new tree
+ * that shares every other subtree with the old one. Holding on to a tree
+ * is therefore an O(1) snapshot that later updates cannot disturb, and
+ * any number of threads can read one without locking.
+ *
+ * Ref holds the current version for a writer to publish to readers with
+ * an atomic swap.
+ */
+public final class PersistentAVLTree<T extends Comparable<T>>
+    implements Iterable<T> {
+
+    /**
+     * An immutable node of the tree
+     */
+    private static final class Node<T> {
+
+        private final T data;
+        private final Node<T> left;
+        private final Node<T> right;
+        private final int height;
+
+        /**
+         * Creates a node
+         * @param left the left subtree, may be null
+         * @param data the data held by the node
+         * @param right the right subtree, may be null
+         */
+        Node(Node<T> left, T data, Node<T> right) {
+            this.data = data;
+            this.left = left;
+            this.right = right;
+            height = Math.max(heightOf(left), heightOf(right)) + 1;
+        }
+    }
+
+    /**
+     * Publishes versions of a tree between threads. Readers call
+     * snapshot and keep the tree they get for as long as they need a
+     * consistent view; writers swap in a new version with compare and
+     * set, retrying if another writer got there first.
+     */
+    public static final class Ref<T extends Comparable<T>> {
+
+        private final AtomicReference<PersistentAVLTree<T>> current;
+
+        /**
+         * Creates a reference to an empty tree
+         */
+        public Ref() {
+            current = new AtomicReference<PersistentAVLTree<T>>(
+                    new PersistentAVLTree<T>());
+        }
+
+        /**
+         * @return the current version of the tree
+         */
+        public PersistentAVLTree<T> snapshot() {
+            return current.get();
+        }
+
+        /**
+         * Replaces the current version with the result of applying a
+         * function to it. The function may be called more than once if
+         * other writers publish at the same time, so it should have no
+         * side effects.
+         * @param update computes the new version from the current one
+         * @return the version that was published
+         */
+        public PersistentAVLTree<T> update(
+                UnaryOperator<PersistentAVLTree<T>> update) {
+            if (update == null) { throw new IllegalArgumentException(); }
+            while (true) {
+                PersistentAVLTree<T> prev = current.get();
+                PersistentAVLTree<T> next = update.apply(prev);
+                if (next == null) { throw new IllegalArgumentException(); }
+                if (next == prev || current.compareAndSet(prev, next)) {
+                    return next;
+                }
+            }
+        }
+
+        /**
+         * Publishes a version with an item added
+         * @param data the item to add
+         * @return the version that was published
+         */
+        public PersistentAVLTree<T> add(final T data) {
+            if (data == null) { throw new IllegalArgumentException(); }
+            return update(new UnaryOperator<PersistentAVLTree<T>>() {
+                @Override
+                public PersistentAVLTree<T> apply(PersistentAVLTree<T> t) {
+                    return t.add(data);
+                }
+            });
+        }
+
+        /**
+         * Publishes a version with an item removed
+         * @param data the item to remove
+         * @return the version that was published
+         */
+        public PersistentAVLTree<T> remove(final T data) {
+            if (data == null) { throw new IllegalArgumentException(); }
+            return update(new UnaryOperator<PersistentAVLTree<T>>() {
+                @Override
+                public PersistentAVLTree<T> apply(PersistentAVLTree<T> t) {
+                    return t.remove(data);
+                }
+            });
+        }
+    }
+
+    private final Node<T> root;
+    private final int size;
+
+    /**
+     * Creates an empty tree
+     */
+    public PersistentAVLTree() {
+        this(null, 0);
+    }
+
+    /**
+     * Creates a tree
+     * @param root the root node, null if empty
+     * @param size the number of items
+     */
+    private PersistentAVLTree(Node<T> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param aNode a node, possibly null
+     * @return the height of aNode, -1 for null
+     */
+    private static int heightOf(Node<?> aNode) {
+        return aNode == null ? -1 : aNode.height;
+    }
+
+    /**
+     * Creates a node from two subtrees whose heights may differ by up to
+     * two, rotating if they do
+     * @param left the left subtree, may be null
+     * @param data the data of the new node
+     * @param right the right subtree, may be null
+     * @return the root of the balanced subtree
+     */
+    private static <T> Node<T> balance(Node<T> left, T data, Node<T> right) {
+        int factor = heightOf(left) - heightOf(right);
+        if (factor == 2) {
+            if (heightOf(left.left) >= heightOf(left.right)) {
+                return new Node<T>(left.left, left.data,
+                        new Node<T>(left.right, data, right));
+            }
+            Node<T> mid = left.right;
+            return new Node<T>(new Node<T>(left.left, left.data, mid.left),
+                    mid.data, new Node<T>(mid.right, data, right));
+        } else if (factor == -2) {
+            if (heightOf(right.right) >= heightOf(right.left)) {
+                return new Node<T>(new Node<T>(left, data, right.left),
+                        right.data, right.right);
+            }
+            Node<T> mid = right.left;
+            return new Node<T>(new Node<T>(left, data, mid.left), mid.data,
+                    new Node<T>(mid.right, right.data, right.right));
+        }
+        return new Node<T>(left, data, right);
+    }
+
+    /**
+     * Recursive method used to add to the tree
+     * @param here the current node
+     * @param data the item to add
+     * @return the copied subtree, or here itself if data is already in it
+     */
+    private Node<T> add(Node<T> here, T data) {
+        if (here == null) { return new Node<T>(null, data, null); }
+        int cmp = data.compareTo(here.data);
+        if (cmp < 0) {
+            Node<T> left = add(here.left, data);
+            return left == here.left ? here
+                    : balance(left, here.data, here.right);
+        } else if (cmp > 0) {
+            Node<T> right = add(here.right, data);
+            return right == here.right ? here
+                    : balance(here.left, here.data, right);
+        }
+        return here;
+    }
+
+    /**
+     * Recursive method used to remove from the tree
+     * @param here the current node
+     * @param data the item to remove
+     * @return the copied subtree, or here itself if data is not in it
+     */
+    private Node<T> remove(Node<T> here, T data) {
+        if (here == null) { return null; }
+        int cmp = data.compareTo(here.data);
+        if (cmp < 0) {
+            Node<T> left = remove(here.left, data);
+            return left == here.left ? here
+                    : balance(left, here.data, here.right);
+        } else if (cmp > 0) {
+            Node<T> right = remove(here.right, data);
+            return right == here.right ? here
+                    : balance(here.left, here.data, right);
+        }
+        if (here.left == null) { return here.right; }
+        if (here.right == null) { return here.left; }
+        Node<T> successor = here.right;
+        while (successor.left != null) { successor = successor.left; }
+        return balance(here.left, successor.data,
+                remove(here.right, successor.data));
+    }
+
+    /**
+     * Returns a tree with an item added, sharing every node off the path
+     * to it with this tree
+     * @param data the item to add
+     * @return the new tree, or this tree if data is already in it
+     */
+    public PersistentAVLTree<T> add(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> res = add(root, data);
+        return res == root ? this : new PersistentAVLTree<T>(res, size + 1);
+    }
+
+    /**
+     * Returns a tree with an item removed, sharing every node off the path
+     * to it with this tree
+     * @param data the item to remove
+     * @return the new tree, or this tree if data is not in it
+     */
+    public PersistentAVLTree<T> remove(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> res = remove(root, data);
+        return res == root ? this : new PersistentAVLTree<T>(res, size - 1);
+    }
+
+    /**
+     * Returns the item in the tree equal to data
+     * @param data the item to search for
+     * @return the stored item, null if it is not in the tree
+     */
+    public T get(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> temp = root;
+        while (temp != null) {
+            int cmp = data.compareTo(temp.data);
+            if (cmp == 0) { return temp.data; }
+            temp = cmp > 0 ? temp.right : temp.left;
+        }
+        return null;
+    }
+
+    /**
+     * @param data the item to search for
+     * @return true if the item is in the tree
+     */
+    public boolean contains(T data) {
+        return get(data) != null;
+    }
+
+    /**
+     * @return true if the tree is empty
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * @return the number of items in the tree
+     */
+    public int size() { return size; }
+
+    /**
+     * @return the height of the tree, -1 if it is empty
+     */
+    public int height() { return heightOf(root); }
+
+    /**
+     * @return a new list of the items in ascending order
+     */
+    public List<T> inorder() {
+        List<T> res = new ArrayList<T>(size);
+        for (T item : this) { res.add(item); }
+        return res;
+    }
+
+    /**
+     * Walks the tree in ascending order. Since the tree never changes the
+     * iterator always sees exactly the items of this version.
+     * @return an iterator over every item
+     */
+    @Override
+    public Iterator<T> iterator() {
+        final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+        for (Node<T> temp = root; temp != null; temp = temp.left) {
+            stack.push(temp);
+        }
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() { return !stack.isEmpty(); }
+
+            @Override
+            public T next() {
+                if (stack.isEmpty()) { throw new NoSuchElementException(); }
+                Node<T> here = stack.pop();
+                for (Node<T> temp = here.right; temp != null; temp = temp.left) {
+                    stack.push(temp);
+                }
+                return here.data;
+            }
+        };
+    }
+}
@@ -1,7 +1,61 @@
+import java.util.Collection;
+
 public class PriorityQueue<T extends Comparable<? super T>> implements
        PriorityQueueInterface<T>, Gradable<T> {
 
-    private Heap<T> back = new Heap<T>();
+    private Heap<T> back;
+
+    /**
+     * Creates an empty priority queue
+     */
+    public PriorityQueue() {
+        back = new Heap<T>();
+    }
+
+    /**
+     * Creates an empty priority queue
+     * @param initialCapacity the number of items the queue can hold before
+     *                        its heap has to grow
+     */
+    public PriorityQueue(int initialCapacity) {
+        back = new Heap<T>(initialCapacity);
+    }
+
+    /**
+     * Creates a priority queue holding the given items, built in O(n)
+     * @param items the items to add, none of which may be null
+     */
+    public PriorityQueue(Collection<? extends T> items) {
+        if (items == null) { throw new IllegalArgumentException(); }
+        back = new Heap<T>(items);
+    }
+
+    /**
+     * Creates a priority queue holding the given items, built in O(n)
+     * @param items the items to add, none of which may be null
+     */
+    public PriorityQueue(T[] items) {
+        if (items == null) { throw new IllegalArgumentException(); }
+        back = new Heap<T>(items);
+    }
+
+    /**
+     * Adds every item in a collection, heapifying in bulk when the batch
+     * is large
+     * @param items the items to add, none of which may be null
+     */
+    public void addAll(Collection<? extends T> items) {
+        back.addAll(items);
+    }
+
+    /**
+     * Adds every item in an array, heapifying in bulk when the batch is
+     * large
+     * @param items the items to add, none of which may be null
+     */
+    public void addAll(T[] items) {
+        back.addAll(items);
+    }
 
     @Override
     public void insert(T item) {
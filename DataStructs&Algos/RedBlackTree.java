@@ -0,0 +1,331 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Red-black tree set. Balance is looser than AVLTree's, a path being at
+ * most twice as long as any other, so it does less work on writes: an
+ * insertion makes at most two rotations and a removal at most three,
+ * with the rest of the fix up done by recolouring. Lookups may go a
+ * little deeper than in an AVL tree.
+ *
+ * Like AVLTree, adding an item that is already present does nothing.
+ */
+public class RedBlackTree<T extends Comparable<? super T>> {
+
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    /**
+     * A node of the tree, with a link back to its parent
+     */
+    private static final class Node<T> {
+
+        private T data;
+        private Node<T> left;
+        private Node<T> right;
+        private Node<T> parent;
+        private boolean color = RED;
+
+        /**
+         * Creates a red node
+         * @param data the data held by the node
+         * @param parent the node's parent, null for the root
+         */
+        Node(T data, Node<T> parent) {
+            this.data = data;
+            this.parent = parent;
+        }
+    }
+
+    private Node<T> root;
+    private int size;
+
+    /**
+     * @param aNode a node, possibly null
+     * @return the colour of aNode, black for null
+     */
+    private boolean colorOf(Node<T> aNode) {
+        return aNode == null ? BLACK : aNode.color;
+    }
+
+    /**
+     * Points a node's parent at a new child in place of the node
+     * @param oldChild the node being replaced
+     * @param newChild the node taking its place, may be null
+     */
+    private void replaceChild(Node<T> oldChild, Node<T> newChild) {
+        Node<T> parent = oldChild.parent;
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+        if (newChild != null) { newChild.parent = parent; }
+    }
+
+    /**
+     * Rotates a node down to the left, its right child taking its place
+     * @param aNode the node to rotate
+     */
+    private void rotateLeft(Node<T> aNode) {
+        Node<T> child = aNode.right;
+        aNode.right = child.left;
+        if (child.left != null) { child.left.parent = aNode; }
+        replaceChild(aNode, child);
+        child.left = aNode;
+        aNode.parent = child;
+    }
+
+    /**
+     * Rotates a node down to the right, its left child taking its place
+     * @param aNode the node to rotate
+     */
+    private void rotateRight(Node<T> aNode) {
+        Node<T> child = aNode.left;
+        aNode.left = child.right;
+        if (child.right != null) { child.right.parent = aNode; }
+        replaceChild(aNode, child);
+        child.right = aNode;
+        aNode.parent = child;
+    }
+
+    /**
+     * Adds an item to the tree
+     * @param data the item to add
+     */
+    public void add(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> parent = null;
+        Node<T> temp = root;
+        int cmp = 0;
+        while (temp != null) {
+            cmp = data.compareTo(temp.data);
+            if (cmp == 0) { return; }
+            parent = temp;
+            temp = cmp > 0 ? temp.right : temp.left;
+        }
+        Node<T> res = new Node<T>(data, parent);
+        if (parent == null) {
+            root = res;
+        } else if (cmp > 0) {
+            parent.right = res;
+        } else {
+            parent.left = res;
+        }
+        size++;
+        fixAfterAdd(res);
+    }
+
+    /**
+     * Restores the red-black properties after a red node is linked in,
+     * recolouring while the uncle is red and rotating at most twice
+     * @param here the node that was added
+     */
+    private void fixAfterAdd(Node<T> here) {
+        while (colorOf(here.parent) == RED) {
+            Node<T> parent = here.parent;
+            Node<T> grand = parent.parent;
+            if (parent == grand.left) {
+                Node<T> uncle = grand.right;
+                if (colorOf(uncle) == RED) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grand.color = RED;
+                    here = grand;
+                } else {
+                    if (here == parent.right) {
+                        rotateLeft(parent);
+                        here = parent;
+                        parent = here.parent;
+                    }
+                    parent.color = BLACK;
+                    grand.color = RED;
+                    rotateRight(grand);
+                }
+            } else {
+                Node<T> uncle = grand.left;
+                if (colorOf(uncle) == RED) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grand.color = RED;
+                    here = grand;
+                } else {
+                    if (here == parent.left) {
+                        rotateRight(parent);
+                        here = parent;
+                        parent = here.parent;
+                    }
+                    parent.color = BLACK;
+                    grand.color = RED;
+                    rotateLeft(grand);
+                }
+            }
+        }
+        root.color = BLACK;
+    }
+
+    /**
+     * Removes an item from the tree
+     * @param data the item to remove
+     * @return the item that was removed, null if it was not in the tree
+     */
+    public T remove(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> temp = root;
+        while (temp != null) {
+            int cmp = data.compareTo(temp.data);
+            if (cmp == 0) { break; }
+            temp = cmp > 0 ? temp.right : temp.left;
+        }
+        if (temp == null) { return null; }
+        T res = temp.data;
+        if (temp.left != null && temp.right != null) {
+            Node<T> successor = temp.right;
+            while (successor.left != null) { successor = successor.left; }
+            temp.data = successor.data;
+            temp = successor;
+        }
+        Node<T> child = temp.left != null ? temp.left : temp.right;
+        if (child != null) {
+            replaceChild(temp, child);
+            child.color = BLACK;
+        } else {
+            if (temp.color == BLACK) { fixAfterRemove(temp); }
+            replaceChild(temp, null);
+        }
+        size--;
+        return res;
+    }
+
+    /**
+     * Restores the red-black properties around a subtree that is one
+     * black node short, as happens when a black leaf is about to be
+     * unlinked. A node with one child needs no fix up, since the child
+     * must be red and is simply painted black in its place.
+     * @param here the root of the subtree that is short
+     */
+    private void fixAfterRemove(Node<T> here) {
+        while (here != root && here.color == BLACK) {
+            Node<T> parent = here.parent;
+            if (here == parent.left) {
+                Node<T> sibling = parent.right;
+                if (colorOf(sibling) == RED) {
+                    sibling.color = BLACK;
+                    parent.color = RED;
+                    rotateLeft(parent);
+                    sibling = parent.right;
+                }
+                if (colorOf(sibling.left) == BLACK
+                        && colorOf(sibling.right) == BLACK) {
+                    sibling.color = RED;
+                    here = parent;
+                } else {
+                    if (colorOf(sibling.right) == BLACK) {
+                        sibling.left.color = BLACK;
+                        sibling.color = RED;
+                        rotateRight(sibling);
+                        sibling = parent.right;
+                    }
+                    sibling.color = parent.color;
+                    parent.color = BLACK;
+                    sibling.right.color = BLACK;
+                    rotateLeft(parent);
+                    here = root;
+                }
+            } else {
+                Node<T> sibling = parent.left;
+                if (colorOf(sibling) == RED) {
+                    sibling.color = BLACK;
+                    parent.color = RED;
+                    rotateRight(parent);
+                    sibling = parent.left;
+                }
+                if (colorOf(sibling.left) == BLACK
+                        && colorOf(sibling.right) == BLACK) {
+                    sibling.color = RED;
+                    here = parent;
+                } else {
+                    if (colorOf(sibling.left) == BLACK) {
+                        sibling.right.color = BLACK;
+                        sibling.color = RED;
+                        rotateLeft(sibling);
+                        sibling = parent.left;
+                    }
+                    sibling.color = parent.color;
+                    parent.color = BLACK;
+                    sibling.left.color = BLACK;
+                    rotateRight(parent);
+                    here = root;
+                }
+            }
+        }
+        here.color = BLACK;
+    }
+
+    /**
+     * Returns the item in the tree equal to data
+     * @param data the item to search for
+     * @return the stored item, null if it is not in the tree
+     */
+    public T get(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> temp = root;
+        while (temp != null) {
+            int cmp = data.compareTo(temp.data);
+            if (cmp == 0) { return temp.data; }
+            temp = cmp > 0 ? temp.right : temp.left;
+        }
+        return null;
+    }
+
+    /**
+     * @param data the item to search for
+     * @return true if the item is in the tree
+     */
+    public boolean contains(T data) {
+        return get(data) != null;
+    }
+
+    /**
+     * @return true if the tree is empty
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * @return the number of items in the tree
+     */
+    public int size() { return size; }
+
+    /**
+     * Removes every item
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * @return a new list of the items in ascending order
+     */
+    public List<T> inorder() {
+        List<T> res = new ArrayList<T>(size);
+        Node<T> temp = root;
+        if (temp == null) { return res; }
+        while (temp.left != null) { temp = temp.left; }
+        while (temp != null) {
+            res.add(temp.data);
+            if (temp.right != null) {
+                temp = temp.right;
+                while (temp.left != null) { temp = temp.left; }
+            } else {
+                while (temp.parent != null && temp == temp.parent.right) {
+                    temp = temp.parent;
+                }
+                temp = temp.parent;
+            }
+        }
+        return res;
+    }
+}
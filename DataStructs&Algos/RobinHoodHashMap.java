@@ -0,0 +1,222 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Linear probing hash map using Robin Hood insertion and backward shift
+ * deletion. An entry that has probed further from its home slot takes the
+ * place of one that has probed less, which keeps probe lengths short and
+ * even, and removal shifts the following run back by one instead of
+ * leaving a tombstone, so lookups never slow down under churn.
+ *
+ * The full mixed hash of every key is stored alongside it. A probe
+ * compares stored hashes first and only calls equals when they match, and
+ * resizing never calls hashCode again.
+ */
+public class RobinHoodHashMap<K, V> implements HashMapInterface<K, V> {
+
+    private Object[] keys;
+    private Object[] vals;
+    private int[] hashes;
+    private int mask;
+    private int size;
+
+    public RobinHoodHashMap() {
+        clear();
+    }
+
+    /**
+     * Mixes the bits of a hash code so that keys with similar hash codes
+     * land in different slots of a power of two table. Zero marks an empty
+     * slot so it is never returned.
+     * @param key the key being hashed
+     * @return the mixed hash, never 0
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Gives how far the entry in a slot is from its home slot
+     * @param slot the index of an occupied slot
+     * @return the probe distance of the entry in slot
+     */
+    private int distance(int slot) {
+        return (slot - (hashes[slot] & mask)) & mask;
+    }
+
+    /**
+     * Finds the slot holding key
+     * @param key the key being searched for
+     * @return the index of key, -1 if the key is not in the map
+     */
+    private int find(Object key) {
+        int h = hash(key);
+        int i = h & mask;
+        for (int dist = 0; hashes[i] != 0 && dist <= distance(i); dist++) {
+            if (hashes[i] == h && key.equals(keys[i])) { return i; }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts a key that is known not to be in the map, displacing entries
+     * that are closer to their home slot than the one being placed
+     * @param h the mixed hash of key
+     * @param key the key
+     * @param value the value
+     */
+    private void insert(int h, Object key, Object value) {
+        int i = h & mask;
+        int dist = 0;
+        while (hashes[i] != 0) {
+            int existing = distance(i);
+            if (existing < dist) {
+                int th = hashes[i];
+                Object tk = keys[i];
+                Object tv = vals[i];
+                hashes[i] = h;
+                keys[i] = key;
+                vals[i] = value;
+                h = th;
+                key = tk;
+                value = tv;
+                dist = existing;
+            }
+            i = (i + 1) & mask;
+            dist++;
+        }
+        hashes[i] = h;
+        keys[i] = key;
+        vals[i] = value;
+    }
+
+    /**
+     * Rebuilds the table at the given length using the stored hashes
+     * @param length the new table length, a power of two
+     */
+    private void rehash(int length) {
+        Object[] oldKeys = keys;
+        Object[] oldVals = vals;
+        int[] oldHashes = hashes;
+        keys = new Object[length];
+        vals = new Object[length];
+        hashes = new int[length];
+        mask = length - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) {
+                insert(oldHashes[i], oldKeys[i], oldVals[i]);
+            }
+        }
+    }
+
+    @Override
+    public V add(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        int i = find(key);
+        if (i != -1) {
+            V res = (V) vals[i];
+            vals[i] = value;
+            return res;
+        }
+        if (((size + 1) / (double) hashes.length) > MAX_LOAD_FACTOR) {
+            rehash(hashes.length * 2);
+        }
+        insert(hash(key), key, value);
+        size++;
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        int i = find(key);
+        if (i == -1) { return null; }
+        V res = (V) vals[i];
+        int next = (i + 1) & mask;
+        while (hashes[next] != 0 && distance(next) != 0) {
+            hashes[i] = hashes[next];
+            keys[i] = keys[next];
+            vals[i] = vals[next];
+            i = next;
+            next = (next + 1) & mask;
+        }
+        hashes[i] = 0;
+        keys[i] = null;
+        vals[i] = null;
+        size--;
+        return res;
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) { throw new IllegalArgumentException(); }
+        int i = find(key);
+        return i == -1 ? null : (V) vals[i];
+    }
+
+    @Override
+    public boolean contains(K key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public void clear() {
+        int length = 2;
+        while (length < STARTING_SIZE) { length <<= 1; }
+        keys = new Object[length];
+        vals = new Object[length];
+        hashes = new int[length];
+        mask = length - 1;
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gives a copy of the table, with an entry at the index of every
+     * occupied slot and null everywhere else
+     * @return the table as map entries
+     */
+    @Override
+    public MapEntry<K, V>[] toArray() {
+        MapEntry<K, V>[] res = new MapEntry[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != 0) {
+                res[i] = new MapEntry<K, V>((K) keys[i], (V) vals[i]);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> res = new HashSet<K>();
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != 0) { res.add((K) keys[i]); }
+        }
+        return res;
+    }
+
+    @Override
+    public List<V> values() {
+        ArrayList<V> res = new ArrayList<V>(size);
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] != 0) { res.add((V) vals[i]); }
+        }
+        return res;
+    }
+}
@@ -1,8 +1,11 @@
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class SkipList<T extends Comparable<? super T>>
-    implements SkipListInterface<T> {
+    implements SkipListInterface<T>, Iterable<T> {
     private CoinFlipper coinFlipper;
     private int size;
     private Node<T> head;
@@ -165,4 +168,167 @@ public class SkipList<T extends Comparable<? super T>>
         size--;
         return res;
     }
+
+    /**
+     * Walks the bottom level in order from a given node, stopping before
+     * the first item that is not less than an upper bound
+     */
+    private class LevelZeroIterator implements Iterator<T> {
+
+        private Node<T> temp;
+        private final T to;
+
+        /**
+         * @param before the node just before the first item returned
+         * @param to the exclusive upper bound, null for no bound
+         */
+        LevelZeroIterator(Node<T> before, T to) {
+            temp = before;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return temp.getNext() != null && (to == null
+                    || temp.getNext().getData().compareTo(to) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) { throw new NoSuchElementException(); }
+            temp = temp.getNext();
+            return temp.getData();
+        }
+    }
+
+    /**
+     * Used to find the last node on the bottom level whose data is less
+     * than the given data
+     * @param data the data to search for
+     * @return the bottom level predecessor of data, the bottom head node
+     * if there is none
+     */
+    private Node<T> lowerNode(T data) {
+        Node<T> temp = head;
+        while (true) {
+            if (temp.getNext() != null && temp.getNext()
+                    .getData().compareTo(data) < 0) {
+                temp = temp.getNext();
+            } else if (temp.getDown() != null) {
+                temp = temp.getDown();
+            } else {
+                return temp;
+            }
+        }
+    }
+
+    /**
+     * Finds the greatest item less than or equal to the given data
+     * @param data the data to search for
+     * @return the floor of data, null if every item is greater
+     */
+    public T floor(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> temp = head;
+        while (true) {
+            if (temp.getNext() != null && temp.getNext()
+                    .getData().compareTo(data) <= 0) {
+                temp = temp.getNext();
+            } else if (temp.getDown() != null) {
+                temp = temp.getDown();
+            } else {
+                return temp.getData();
+            }
+        }
+    }
+
+    /**
+     * Finds the least item greater than or equal to the given data
+     * @param data the data to search for
+     * @return the ceiling of data, null if every item is less
+     */
+    public T ceiling(T data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        Node<T> temp = lowerNode(data).getNext();
+        return temp == null ? null : temp.getData();
+    }
+
+    /**
+     * Gives a lazy view of the items from one bound up to another. The
+     * start is found in O(log n) and the items are then read straight off
+     * the bottom level, without copying.
+     * @param from the inclusive lower bound
+     * @param to the exclusive upper bound
+     * @return the items in [from, to) in ascending order
+     */
+    public Iterable<T> subSet(final T from, final T to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException();
+        }
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new LevelZeroIterator(lowerNode(from), to);
+            }
+        };
+    }
+
+    /**
+     * Walks the bottom level in ascending order without copying
+     * @return an iterator over every item
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new LevelZeroIterator(getHeadAt(0), null);
+    }
+
+    /**
+     * Adds every item in a collection. If the list is empty and the items
+     * come in ascending order, the towers are built left to right by
+     * appending to the last node of each level, in O(n) rather than
+     * O(n log n). Otherwise each item is put on its own.
+     * @param data the items to add, none of which may be null
+     */
+    public void putAll(Collection<? extends T> data) {
+        if (data == null) { throw new IllegalArgumentException(); }
+        T prev = null;
+        boolean sorted = true;
+        for (T item : data) {
+            if (item == null) { throw new IllegalArgumentException(); }
+            if (prev != null && prev.compareTo(item) > 0) { sorted = false; }
+            prev = item;
+        }
+        if (size != 0 || !sorted) {
+            for (T item : data) { put(item); }
+            return;
+        }
+        Node<T>[] tails = new Node[head.getLevel() + 1];
+        for (int i = 0; i < tails.length; i++) { tails[i] = getHeadAt(i); }
+        for (T item : data) {
+            int height = 0;
+            while (coinFlipper.flipCoin().equals(CoinFlipper.Coin.HEADS)) {
+                height++;
+            }
+            while (head.getLevel() <= height) {
+                head = new Node<T>(null, head.getLevel() + 1, null, null, head);
+                if (tails.length <= head.getLevel()) {
+                    Node<T>[] temp = tails;
+                    tails = new Node[temp.length * 2];
+                    System.arraycopy(temp, 0, tails, 0, temp.length);
+                }
+                tails[head.getLevel()] = head;
+            }
+            Node<T> last = null;
+            for (int level = height; level >= 0; level--) {
+                Node<T> res = new Node<T>(item, level, null, last, null);
+                if (last != null) {
+                    last.setDown(res);
+                }
+                tails[level].setNext(res);
+                tails[level] = res;
+                last = res;
+            }
+            size++;
+        }
+    }
 }
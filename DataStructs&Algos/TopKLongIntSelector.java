@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+/**
+ * Keeps the k entries with the largest long scores seen in a stream, each
+ * identified by an int id, using a LongIntHeap of at most k entries.
+ * Works like TopKSelector but never boxes a score or id.
+ */
+public class TopKLongIntSelector {
+
+    private final int k;
+    private final LongIntHeap heap;
+
+    /**
+     * Creates an empty selector
+     * @param k the number of entries to keep, at least 1
+     */
+    public TopKLongIntSelector(int k) {
+        if (k < 1) { throw new IllegalArgumentException(); }
+        this.k = k;
+        heap = new LongIntHeap(k);
+    }
+
+    /**
+     * Offers an entry to the selector
+     * @param score the score the entry is ranked by
+     * @param id the id of the entry
+     * @return true if the entry is now among the k kept
+     */
+    public boolean offer(long score, int id) {
+        if (heap.size() < k) {
+            heap.add(score, id);
+            return true;
+        }
+        if (score <= heap.peekKey()) { return false; }
+        heap.replaceTop(score, id);
+        return true;
+    }
+
+    /**
+     * Offers every entry kept by another selector to this one
+     * @param other the selector to merge in, left unchanged
+     */
+    public void merge(TopKLongIntSelector other) {
+        if (other == null) { throw new IllegalArgumentException(); }
+        long[] scores = other.heap.keysToArray();
+        int[] ids = other.heap.payloadsToArray();
+        for (int i = 1; i < scores.length; i++) {
+            offer(scores[i], ids[i]);
+        }
+    }
+
+    /**
+     * @return the number of entries kept, at most k
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Gives the ids kept, highest score first. The selector is unchanged.
+     * @return a new array of the kept ids in descending score order
+     */
+    public int[] sortedIds() {
+        LongIntHeap copy = new LongIntHeap(heap.size());
+        long[] scores = heap.keysToArray();
+        int[] ids = heap.payloadsToArray();
+        for (int i = 1; i < scores.length; i++) {
+            copy.add(scores[i], ids[i]);
+        }
+        int[] res = new int[copy.size()];
+        for (int i = res.length - 1; i >= 0; i--) {
+            res[i] = copy.remove();
+        }
+        return res;
+    }
+
+    /**
+     * Gives the scores kept, highest first. The selector is unchanged.
+     * @return a new array of the kept scores in descending order
+     */
+    public long[] sortedScores() {
+        long[] scores = heap.keysToArray();
+        long[] res = new long[heap.size()];
+        for (int i = 0; i < res.length; i++) { res[i] = scores[i + 1]; }
+        Arrays.sort(res);
+        for (int i = 0, j = res.length - 1; i < j; i++, j--) {
+            long temp = res[i];
+            res[i] = res[j];
+            res[j] = temp;
+        }
+        return res;
+    }
+}
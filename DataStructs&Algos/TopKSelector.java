@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the k largest items seen in a stream using a Heap of at most k
+ * items. The heap's minimum is the smallest item kept, so a new item is
+ * either rejected with one comparison or swapped in with replaceTop,
+ * making a pass over n items O(n log k) time and O(k) space.
+ *
+ * Partial results from parallel workers can be combined with merge.
+ */
+public class TopKSelector<T extends Comparable<? super T>> {
+
+    private final int k;
+    private final Heap<T> heap;
+
+    /**
+     * Creates an empty selector
+     * @param k the number of items to keep, at least 1
+     */
+    public TopKSelector(int k) {
+        if (k < 1) { throw new IllegalArgumentException(); }
+        this.k = k;
+        heap = new Heap<T>(k);
+    }
+
+    /**
+     * Offers an item to the selector
+     * @param item the item, may not be null
+     * @return true if the item is now among the k kept
+     */
+    public boolean offer(T item) {
+        if (item == null) { throw new IllegalArgumentException(); }
+        if (heap.size() < k) {
+            heap.add(item);
+            return true;
+        }
+        if (item.compareTo(heap.peek()) <= 0) { return false; }
+        heap.replaceTop(item);
+        return true;
+    }
+
+    /**
+     * Offers every item kept by another selector to this one
+     * @param other the selector to merge in, left unchanged
+     */
+    public void merge(TopKSelector<? extends T> other) {
+        if (other == null) { throw new IllegalArgumentException(); }
+        Object[] items = other.heap.toArray();
+        for (int i = 1; i <= other.heap.size(); i++) {
+            offer((T) items[i]);
+        }
+    }
+
+    /**
+     * @return the smallest item kept, which a new item must beat once the
+     * selector is full; null if nothing has been offered
+     */
+    public T threshold() {
+        return heap.peek();
+    }
+
+    /**
+     * @return the number of items kept, at most k
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * @return the number of items the selector keeps when full
+     */
+    public int capacity() {
+        return k;
+    }
+
+    /**
+     * Gives the items kept, largest first. The selector is unchanged.
+     * @return a new list of the kept items in descending order
+     */
+    public List<T> toSortedList() {
+        T[] items = heap.toArray();
+        List<T> res = new ArrayList<T>(heap.size());
+        for (int i = 1; i <= heap.size(); i++) { res.add(items[i]); }
+        Collections.sort(res, Collections.reverseOrder());
+        return res;
+    }
+}
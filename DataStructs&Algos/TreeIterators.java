@@ -0,0 +1,263 @@
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Lazy traversals over the Node trees shared by BinarySearchTree and
+ * AVLTree. Each iterator keeps an explicit stack or queue holding at most
+ * one path or one level of the tree, so nothing is copied up front and
+ * reading a short prefix of a large tree only visits that prefix.
+ *
+ * The iterators are not fail fast; changing the tree while one is in use
+ * gives undefined results.
+ */
+final class TreeIterators {
+
+    /**
+     * Not instantiable
+     */
+    private TreeIterators() { }
+
+    /**
+     * @param root the root of the tree, may be null
+     * @return an iterator over the tree in preorder
+     */
+    static <T extends Comparable<T>> Iterator<T> preorder(Node<T> root) {
+        final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+        if (root != null) { stack.push(root); }
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() { return !stack.isEmpty(); }
+
+            @Override
+            public T next() {
+                if (stack.isEmpty()) { throw new NoSuchElementException(); }
+                Node<T> here = stack.pop();
+                if (here.getRight() != null) { stack.push(here.getRight()); }
+                if (here.getLeft() != null) { stack.push(here.getLeft()); }
+                return here.getData();
+            }
+        };
+    }
+
+    /**
+     * @param root the root of the tree, may be null
+     * @return an iterator over the tree in ascending order
+     */
+    static <T extends Comparable<T>> Iterator<T> inorder(Node<T> root) {
+        return new RangeIterator<T>(root, null, null);
+    }
+
+    /**
+     * @param root the root of the tree, may be null
+     * @return an iterator over the tree in postorder
+     */
+    static <T extends Comparable<T>> Iterator<T> postorder(Node<T> root) {
+        final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+        pushFirstLeaf(stack, root);
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() { return !stack.isEmpty(); }
+
+            @Override
+            public T next() {
+                if (stack.isEmpty()) { throw new NoSuchElementException(); }
+                Node<T> here = stack.pop();
+                Node<T> parent = stack.peek();
+                if (parent != null && parent.getLeft() == here) {
+                    pushFirstLeaf(stack, parent.getRight());
+                }
+                return here.getData();
+            }
+        };
+    }
+
+    /**
+     * Pushes the path from a node down to the first node of its subtree
+     * in postorder, preferring left children over right ones
+     * @param stack the stack being pushed onto
+     * @param here the root of the subtree, may be null
+     */
+    private static <T extends Comparable<T>> void pushFirstLeaf(
+            Deque<Node<T>> stack, Node<T> here) {
+        while (here != null) {
+            stack.push(here);
+            here = here.getLeft() != null ? here.getLeft() : here.getRight();
+        }
+    }
+
+    /**
+     * @param root the root of the tree, may be null
+     * @return an iterator over the tree in level order
+     */
+    static <T extends Comparable<T>> Iterator<T> levelorder(Node<T> root) {
+        final Deque<Node<T>> queue = new ArrayDeque<Node<T>>();
+        if (root != null) { queue.add(root); }
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() { return !queue.isEmpty(); }
+
+            @Override
+            public T next() {
+                if (queue.isEmpty()) { throw new NoSuchElementException(); }
+                Node<T> here = queue.remove();
+                if (here.getLeft() != null) { queue.add(here.getLeft()); }
+                if (here.getRight() != null) { queue.add(here.getRight()); }
+                return here.getData();
+            }
+        };
+    }
+
+    /**
+     * @param root the root of the tree, may be null
+     * @param from the lowest item to include
+     * @param to the item to stop before
+     * @return an iterator over the items from from inclusive to to
+     * exclusive, in ascending order
+     */
+    static <T extends Comparable<T>> Iterator<T> range(Node<T> root, T from,
+            T to) {
+        return new RangeIterator<T>(root, from, to);
+    }
+
+    /**
+     * @param root the root of the tree, may be null
+     * @param size the number of items in the tree
+     * @return a spliterator over the tree in ascending order that splits
+     * by subtree
+     */
+    static <T extends Comparable<T>> Spliterator<T> spliterator(Node<T> root,
+            int size) {
+        return new SubtreeSpliterator<T>(null, root, size);
+    }
+
+    /**
+     * In order iterator that skips subtrees wholly outside optional bounds.
+     * The stack holds the nodes on the path whose items are still to come.
+     */
+    private static final class RangeIterator<T extends Comparable<T>>
+        implements Iterator<T> {
+
+        private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+        private final T from;
+        private final T to;
+
+        /**
+         * Creates an iterator
+         * @param root the root of the tree, may be null
+         * @param from the lowest item to include, null for no bound
+         * @param to the item to stop before, null for no bound
+         */
+        RangeIterator(Node<T> root, T from, T to) {
+            this.from = from;
+            this.to = to;
+            pushLeft(root);
+        }
+
+        /**
+         * Pushes the left spine of a subtree, stepping right past any node
+         * below the lower bound since its left subtree is below it too
+         * @param here the root of the subtree, may be null
+         */
+        private void pushLeft(Node<T> here) {
+            while (here != null) {
+                if (from != null && here.getData().compareTo(from) < 0) {
+                    here = here.getRight();
+                } else {
+                    stack.push(here);
+                    here = here.getLeft();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty()
+                    && (to == null || stack.peek().getData().compareTo(to) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) { throw new NoSuchElementException(); }
+            Node<T> here = stack.pop();
+            pushLeft(here.getRight());
+            return here.getData();
+        }
+    }
+
+    /**
+     * Covers one pending item followed by a whole subtree in order. A split
+     * hands off the pending item and the left subtree, keeping the
+     * subtree's own item as the new pending one and the right subtree, so
+     * both halves stay in order and no items are copied. Once traversal
+     * starts the spliterator no longer splits.
+     */
+    private static final class SubtreeSpliterator<T extends Comparable<T>>
+        implements Spliterator<T> {
+
+        private T pending;
+        private Node<T> subtree;
+        private long estimate;
+        private Iterator<T> rest;
+
+        /**
+         * Creates a spliterator
+         * @param pending the item that comes first, null for none
+         * @param subtree the subtree whose items follow, may be null
+         * @param estimate the estimated number of items covered
+         */
+        SubtreeSpliterator(T pending, Node<T> subtree, long estimate) {
+            this.pending = pending;
+            this.subtree = subtree;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (action == null) { throw new NullPointerException(); }
+            if (pending != null) {
+                T res = pending;
+                pending = null;
+                action.accept(res);
+                return true;
+            }
+            if (rest == null) { rest = inorder(subtree); }
+            if (!rest.hasNext()) { return false; }
+            action.accept(rest.next());
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (rest != null || subtree == null
+                    || (subtree.getLeft() == null && pending == null)) {
+                return null;
+            }
+            estimate >>>= 1;
+            Spliterator<T> prefix = new SubtreeSpliterator<T>(pending,
+                    subtree.getLeft(), estimate);
+            pending = subtree.getData();
+            subtree = subtree.getRight();
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return null;
+        }
+    }
+}